@@ -0,0 +1,73 @@
+package org.mallim.java101.CompletableExecutor.jmh;
+
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutorService;
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutors;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of calling an {@code @Async} method through Spring's proxy and through the generated
+ * {@code EchoServiceAsyncDelegate}, for the default executor and for a qualified one, against a plain
+ * submit of the same work.
+ * <p>
+ * Tasks run inline so that only the dispatch is measured; add {@code -prof gc} for the bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncDispatchBenchmark {
+
+    static final String QUALIFIER = "inline";
+
+    private CompletableExecutorService executor;
+    private EchoService target;
+    private EchoService proxy;
+    private EchoService generated;
+
+    @Setup
+    public void setUp() {
+        executor = CompletableExecutors.completable(new SubmitAllocationBenchmark.InlineExecutorService());
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton(QUALIFIER, executor);
+
+        AsyncAnnotationBeanPostProcessor postProcessor = new AsyncAnnotationBeanPostProcessor();
+        postProcessor.setExecutor(executor);
+        postProcessor.setBeanFactory(beanFactory);
+        target = new EchoService();
+        proxy = (EchoService) postProcessor.postProcessAfterInitialization(new EchoService(), "echoService");
+        generated = new EchoServiceAsyncDelegate(qualifier ->
+                beanFactory.getBean(qualifier.isEmpty() ? QUALIFIER : qualifier, Executor.class));
+    }
+
+    @Benchmark
+    public Object direct() {
+        return executor.submit(() -> target.echo("hello").get()).join();
+    }
+
+    @Benchmark
+    public Object proxy() {
+        return proxy.echo("hello").join();
+    }
+
+    @Benchmark
+    public Object proxyQualified() {
+        return proxy.qualifiedEcho("hello").join();
+    }
+
+    @Benchmark
+    public Object generated() {
+        return generated.echo("hello").join();
+    }
+
+    @Benchmark
+    public Object generatedQualified() {
+        return generated.qualifiedEcho("hello").join();
+    }
+}
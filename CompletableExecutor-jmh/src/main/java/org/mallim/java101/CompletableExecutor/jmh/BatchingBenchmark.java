@@ -0,0 +1,73 @@
+package org.mallim.java101.CompletableExecutor.jmh;
+
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutorService;
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutors;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-task cost of submitting {@value #TASKS} tiny tasks and waiting for all of them, one hand-off
+ * per task against coalesced batches.
+ * <p>
+ * {@value #TASKS} is a multiple of every batch size, so every batch fills up and none waits for the
+ * window on the timer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchingBenchmark {
+
+    private static final int TASKS = 1_024;
+
+    @Param({"16", "64", "256"})
+    private int maxBatchSize;
+
+    private ExecutorService plainThreads;
+    private ExecutorService batchThreads;
+    private CompletableExecutorService plain;
+    private CompletableExecutorService batching;
+    private CompletableFuture<?>[] futures;
+
+    @Setup
+    public void setUp() {
+        plainThreads = Executors.newFixedThreadPool(4);
+        batchThreads = Executors.newFixedThreadPool(4);
+        plain = CompletableExecutors.completable(plainThreads);
+        batching = CompletableExecutors.batching(batchThreads, maxBatchSize, Duration.ofMillis(10));
+        futures = new CompletableFuture<?>[TASKS];
+    }
+
+    @TearDown
+    public void tearDown() {
+        plainThreads.shutdownNow();
+        batchThreads.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public Object perTask() {
+        return submitAll(plain);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public Object batched() {
+        return submitAll(batching);
+    }
+
+    private Object submitAll(CompletableExecutorService executor) {
+        for (int i = 0; i < TASKS; i++) {
+            final int value = i;
+            futures[i] = executor.submit(() -> value);
+        }
+        return CompletableFuture.allOf(futures).join();
+    }
+}
@@ -0,0 +1,42 @@
+package org.mallim.java101.CompletableExecutor.jmh;
+
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutorService;
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutors;
+import org.mallim.java101.CompletableExecutor.async.ExecutionContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of carrying an {@code ExecutionContext} through a submit, with no context open and with a
+ * request id open. Tasks run inline; add {@code -prof gc} for the bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextPropagationBenchmark {
+
+    private final Callable<String> task = () -> "done";
+    private CompletableExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        executor = CompletableExecutors.completable(new SubmitAllocationBenchmark.InlineExecutorService());
+    }
+
+    @Benchmark
+    public Object withoutContext() {
+        return executor.submit(task).join();
+    }
+
+    @Benchmark
+    public Object withContext() {
+        try (ExecutionContext.Scope scope = ExecutionContext.open("requestId", "req-1")) {
+            return executor.submit(task).join();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.mallim.java101.CompletableExecutor.jmh;
+
+import org.mallim.java101.CompletableExecutor.processor.AsyncDelegate;
+import org.springframework.scheduling.annotation.Async;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Smallest possible {@code @Async} service, so that {@code AsyncDispatchBenchmark} measures dispatch only.
+ */
+@AsyncDelegate
+public class EchoService {
+
+    @Async
+    public CompletableFuture<String> echo(String value) {
+        return CompletableFuture.completedFuture(value);
+    }
+
+    @Async(AsyncDispatchBenchmark.QUALIFIER)
+    public CompletableFuture<String> qualifiedEcho(String value) {
+        return CompletableFuture.completedFuture(value);
+    }
+}
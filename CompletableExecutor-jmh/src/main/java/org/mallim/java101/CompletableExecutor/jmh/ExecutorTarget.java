@@ -0,0 +1,89 @@
+package org.mallim.java101.CompletableExecutor.jmh;
+
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutorService;
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutors;
+import org.mallim.java101.CompletableExecutor.async.TimedCompletables;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The executors compared by the benchmarks, selected by name through a {@code @Param}:
+ * <ul>
+ * <li>{@code supplyAsync} - {@code CompletableFuture.supplyAsync} on the common pool</li>
+ * <li>{@code forkJoin} - {@code supplyAsync} on a dedicated async-mode {@code ForkJoinPool}</li>
+ * <li>{@code fixed} - {@code supplyAsync} on a fixed thread pool</li>
+ * <li>{@code completable} - {@code CompletableExecutors.completable} on the same fixed pool</li>
+ * <li>{@code timed} - {@code TimedCompletables.timed} on the same fixed pool, with a timeout that never fires</li>
+ * <li>{@code workStealing} - {@code CompletableExecutors.workStealing}</li>
+ * <li>{@code virtual} - {@code CompletableExecutors.virtual}, a cached pool before Java 21</li>
+ * </ul>
+ */
+abstract class ExecutorTarget {
+
+    abstract <T> CompletableFuture<T> submit(Callable<T> task);
+
+    abstract void shutdown();
+
+    static ExecutorTarget of(String name, int threads) {
+        switch (name) {
+            case "supplyAsync":
+                return supplyAsync(ForkJoinPool.commonPool(), false);
+            case "forkJoin":
+                return supplyAsync(new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true), true);
+            case "fixed":
+                return supplyAsync(Executors.newFixedThreadPool(threads), true);
+            case "completable":
+                return completable(CompletableExecutors.completable(Executors.newFixedThreadPool(threads)));
+            case "timed":
+                return completable(TimedCompletables.timed(Executors.newFixedThreadPool(threads), Duration.ofMinutes(1)));
+            case "workStealing":
+                return completable(CompletableExecutors.workStealing(threads));
+            case "virtual":
+                return completable(CompletableExecutors.virtual());
+            default:
+                throw new IllegalArgumentException("Unknown executor: " + name);
+        }
+    }
+
+    private static ExecutorTarget supplyAsync(ExecutorService pool, boolean owned) {
+        return new ExecutorTarget() {
+            @Override
+            <T> CompletableFuture<T> submit(Callable<T> task) {
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return task.call();
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, pool);
+            }
+
+            @Override
+            void shutdown() {
+                if (owned) {
+                    pool.shutdownNow();
+                }
+            }
+        };
+    }
+
+    private static ExecutorTarget completable(CompletableExecutorService executor) {
+        return new ExecutorTarget() {
+            @Override
+            <T> CompletableFuture<T> submit(Callable<T> task) {
+                return executor.submit(task);
+            }
+
+            @Override
+            void shutdown() {
+                executor.shutdownNow();
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package org.mallim.java101.CompletableExecutor.jmh;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans out {@code tasks} small computations and joins them all, the shape of a request that
+ * calls several services at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanOutBenchmark {
+
+    private static final int POOL_THREADS = 4;
+
+    @Param({"supplyAsync", "forkJoin", "fixed", "completable", "timed", "workStealing", "virtual"})
+    private String executor;
+
+    @Param({"10", "100", "1000"})
+    private int tasks;
+
+    private ExecutorTarget target;
+
+    @Setup
+    public void setUp() {
+        target = ExecutorTarget.of(executor, POOL_THREADS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        target.shutdown();
+    }
+
+    @Benchmark
+    public long fanOutFanIn() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks];
+        for (int i = 0; i < tasks; i++) {
+            final long seed = i;
+            futures[i] = target.submit(() -> mix(seed));
+        }
+        CompletableFuture.allOf(futures).join();
+        long sum = 0;
+        for (CompletableFuture<?> future : futures) {
+            sum += (Long) future.join();
+        }
+        return sum;
+    }
+
+    /**
+     * A few hundred nanoseconds of work that the JIT cannot fold away.
+     */
+    private static long mix(long seed) {
+        long x = seed;
+        for (int i = 0; i < 64; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+        }
+        return x;
+    }
+}
@@ -0,0 +1,118 @@
+package org.mallim.java101.CompletableExecutor.jmh;
+
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutorService;
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutors;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.Executors.callable;
+
+/**
+ * Bytes allocated per submit, before and after the combined future-and-task submit path.
+ * <p>
+ * Tasks run inline on the calling thread so that only the submit path itself allocates. Run with
+ * the GC profiler and compare {@code gc.alloc.rate.norm}:
+ * <pre>
+ * java -jar target/benchmarks.jar SubmitAllocation -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubmitAllocationBenchmark {
+
+    private final Callable<String> callable = () -> "done";
+    private final Runnable runnable = () -> {
+    };
+
+    private ExecutorService inline;
+    private CompletableExecutorService current;
+
+    @Setup
+    public void setUp() {
+        inline = new InlineExecutorService();
+        current = CompletableExecutors.completable(inline);
+    }
+
+    @Benchmark
+    public Object legacySubmitCallable() {
+        return legacySubmit(inline, callable);
+    }
+
+    @Benchmark
+    public Object legacySubmitRunnable() {
+        return legacySubmit(inline, callable(runnable));
+    }
+
+    @Benchmark
+    public Object submitCallable() {
+        return current.submit(callable);
+    }
+
+    @Benchmark
+    public Object submitRunnable() {
+        return current.submit(runnable);
+    }
+
+    /**
+     * The submit path of DelegatingCompletableExecutorService before it dispatched through execute().
+     */
+    private static <T> CompletableFuture<T> legacySubmit(ExecutorService delegate, Callable<T> task) {
+        final CompletableFuture<T> cf = new CompletableFuture<>();
+        delegate.submit(() -> {
+            try {
+                cf.complete(task.call());
+            } catch (CancellationException e) {
+                cf.cancel(true);
+            } catch (Exception e) {
+                cf.completeExceptionally(e);
+            }
+        });
+        return cf;
+    }
+
+    /**
+     * Runs tasks on the submitting thread; submit() still wraps them in a FutureTask like a thread pool does.
+     */
+    static final class InlineExecutorService extends AbstractExecutorService {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+}
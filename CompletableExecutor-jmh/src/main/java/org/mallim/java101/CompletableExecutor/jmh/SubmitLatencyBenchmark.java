@@ -0,0 +1,49 @@
+package org.mallim.java101.CompletableExecutor.jmh;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Submit-to-complete round trip of one tiny task: throughput with several submitting threads, and
+ * the latency distribution of each round trip.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class SubmitLatencyBenchmark {
+
+    private static final int POOL_THREADS = 4;
+
+    @Param({"supplyAsync", "forkJoin", "fixed", "completable", "timed", "workStealing", "virtual"})
+    private String executor;
+
+    private final Callable<String> task = () -> "done";
+    private ExecutorTarget target;
+
+    @Setup
+    public void setUp() {
+        target = ExecutorTarget.of(executor, POOL_THREADS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        target.shutdown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public Object throughput() {
+        return target.submit(task).join();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public Object latency() {
+        return target.submit(task).join();
+    }
+}
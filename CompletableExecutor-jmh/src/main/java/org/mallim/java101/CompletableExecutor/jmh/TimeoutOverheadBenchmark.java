@@ -0,0 +1,56 @@
+package org.mallim.java101.CompletableExecutor.jmh;
+
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutorService;
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutors;
+import org.mallim.java101.CompletableExecutor.async.TimedCompletables;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a timeout costs on top of a plain completable submit when the task finishes in time:
+ * scheduling the timeout on the shared wheel and cancelling it again, or applying a deadline.
+ * <p>
+ * Tasks run inline so that only the submit path is measured; add {@code -prof gc} for the bytes
+ * per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeoutOverheadBenchmark {
+
+    private final Callable<String> task = () -> "done";
+
+    private CompletableExecutorService plain;
+    private CompletableExecutorService timed;
+    private CompletableExecutorService deadlines;
+
+    @Setup
+    public void setUp() {
+        ExecutorService inline = new SubmitAllocationBenchmark.InlineExecutorService();
+        plain = CompletableExecutors.completable(inline);
+        timed = TimedCompletables.timed(inline, Duration.ofMinutes(1));
+        deadlines = TimedCompletables.withDeadlines(inline, Duration.ofMinutes(1));
+    }
+
+    @Benchmark
+    public Object plain() {
+        return plain.submit(task).join();
+    }
+
+    @Benchmark
+    public Object timed() {
+        return timed.submit(task).join();
+    }
+
+    @Benchmark
+    public Object deadline() {
+        return deadlines.submit(task).join();
+    }
+}
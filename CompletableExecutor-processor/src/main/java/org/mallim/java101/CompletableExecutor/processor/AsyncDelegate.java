@@ -0,0 +1,23 @@
+package org.mallim.java101.CompletableExecutor.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates {@code <Type>AsyncDelegate}, a subclass of the annotated type that runs its Spring
+ * {@code @Async} methods on their executors without a proxy.
+ * <p>
+ * The delegate is built with a {@code Function<String, Executor>} from {@code @Async} qualifier to
+ * executor, the empty string standing for the default executor. Each executor is resolved once, in the
+ * constructor, and every call is a plain virtual call plus a submit. The overriding methods carry no
+ * {@code @Async}, so Spring does not proxy the delegate again.
+ * <p>
+ * {@code @Async} methods must be neither private, static nor final, and return {@code void},
+ * {@code Future} or {@code CompletableFuture}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface AsyncDelegate {
+}
@@ -0,0 +1,333 @@
+package org.mallim.java101.CompletableExecutor.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the {@code <Type>AsyncDelegate} of every {@link AsyncDelegate} type.
+ * <p>
+ * A generated method submits a callable that calls the super method and awaits the future it returns,
+ * which is what Spring's {@code AsyncExecutionInterceptor} does through reflection on every call.
+ */
+@SupportedAnnotationTypes("org.mallim.java101.CompletableExecutor.processor.AsyncDelegate")
+public class AsyncDelegateProcessor extends AbstractProcessor {
+
+    static final String ASYNC = "org.springframework.scheduling.annotation.Async";
+    static final String SUFFIX = "AsyncDelegate";
+
+    private static final String RUNTIME = "org.mallim.java101.CompletableExecutor.async.AsyncDelegates";
+    private static final String EXECUTOR_SERVICE = "org.mallim.java101.CompletableExecutor.async.CompletableExecutorService";
+    private static final String EXECUTORS = "java.util.function.Function<String, ? extends java.util.concurrent.Executor>";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                TypeElement type = (TypeElement) element;
+                if (isValid(type)) {
+                    generate(type);
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isValid(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || type.getNestingKind() != NestingKind.TOP_LEVEL) {
+            error(type, "@AsyncDelegate must be on a top-level class");
+            return false;
+        }
+        if (type.getModifiers().contains(Modifier.FINAL) || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(type, "@AsyncDelegate class must be neither final nor abstract");
+            return false;
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String name = type.getSimpleName() + SUFFIX;
+        DeclaredType declared = (DeclaredType) type.asType();
+
+        Map<String, String> executors = new LinkedHashMap<>();
+        StringBuilder methods = new StringBuilder();
+        List<ExecutableElement> members = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type));
+        checkNotInherited(type, members);
+        for (ExecutableElement method : members) {
+            String qualifier = qualifier(method);
+            if (qualifier == null || !isOverridable(type, method)) {
+                continue;
+            }
+            String field = executors.get(qualifier);
+            if (field == null) {
+                field = fieldName(qualifier, executors.size());
+                executors.put(qualifier, field);
+            }
+            writeMethod(methods, declared, method, field);
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!pkg.isUnnamed()) {
+            source.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * Runs the {@code @Async} methods of {@link ").append(type.getSimpleName())
+                .append("} on their executors without a proxy.\n")
+                .append(" * Generated by {@code ").append(getClass().getName()).append("}.\n")
+                .append(" */\n")
+                .append("public class ").append(name).append(typeParameters(type.getTypeParameters()).trim())
+                .append(" extends ").append(declared).append(" {\n");
+        for (Map.Entry<String, String> executor : executors.entrySet()) {
+            source.append("\n    private final ").append(EXECUTOR_SERVICE).append(' ').append(executor.getValue()).append(";\n");
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (!constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                writeConstructor(source, name, constructor, executors);
+            }
+        }
+        source.append(methods).append("}\n");
+
+        String qualifiedName = pkg.isUnnamed() ? name : pkg.getQualifiedName() + "." + name;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(type, "Could not write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private void writeConstructor(StringBuilder source, String name, ExecutableElement constructor,
+                                  Map<String, String> executors) {
+        List<String> names = new ArrayList<>();
+        for (VariableElement parameter : constructor.getParameters()) {
+            names.add(parameter.getSimpleName().toString());
+        }
+        String lookup = "executors";
+        while (names.contains(lookup)) {
+            lookup = lookup + "_";
+        }
+        source.append("\n    public ").append(typeParameters(constructor.getTypeParameters()))
+                .append(name).append('(').append(EXECUTORS).append(' ').append(lookup);
+        if (!names.isEmpty()) {
+            source.append(", ");
+        }
+        source.append(parameters(constructor, constructor.getParameters(), parameterTypes(constructor)))
+                .append(')').append(throwsClause(constructor.getThrownTypes())).append(" {\n")
+                .append("        super(").append(String.join(", ", names)).append(");\n");
+        for (Map.Entry<String, String> executor : executors.entrySet()) {
+            source.append("        this.").append(executor.getValue()).append(" = ").append(RUNTIME)
+                    .append(".resolve(").append(lookup).append(", \"").append(escape(executor.getKey())).append("\");\n");
+        }
+        source.append("    }\n");
+    }
+
+    private void writeMethod(StringBuilder source, DeclaredType declared, ExecutableElement method, String field) {
+        ExecutableType type = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declared, method);
+        TypeMirror returnType = type.getReturnType();
+        boolean isVoid = returnType.getKind() == TypeKind.VOID;
+        if (!isVoid && !isFuture(returnType)) {
+            error(method, "@Async method of an @AsyncDelegate class must return void, Future or CompletableFuture");
+            return;
+        }
+        List<String> arguments = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            arguments.add(parameter.getSimpleName().toString());
+        }
+        String call = "super." + method.getSimpleName() + "(" + String.join(", ", arguments) + ")";
+
+        source.append("\n    @Override\n    ")
+                .append(method.getModifiers().contains(Modifier.PROTECTED) ? "protected " : "public ")
+                .append(typeParameters(method.getTypeParameters()))
+                .append(returnType).append(' ').append(method.getSimpleName()).append('(')
+                .append(parameters(method, method.getParameters(), type.getParameterTypes()))
+                .append(')').append(throwsClause(type.getThrownTypes())).append(" {\n");
+        if (!isVoid) {
+            source.append("        return this.").append(field).append(".submit(() -> ")
+                    .append(RUNTIME).append(".await(").append(call).append("));\n");
+        } else if (type.getThrownTypes().isEmpty()) {
+            source.append("        this.").append(field).append(".execute(() -> ").append(call).append(");\n");
+        } else {
+            source.append("        this.").append(field).append(".execute(() -> {\n")
+                    .append("            try {\n")
+                    .append("                ").append(call).append(";\n")
+                    .append("            } catch (RuntimeException e) {\n")
+                    .append("                throw e;\n")
+                    .append("            } catch (Exception e) {\n")
+                    .append("                throw new java.lang.reflect.UndeclaredThrowableException(e);\n")
+                    .append("            }\n")
+                    .append("        });\n");
+        }
+        source.append("    }\n");
+    }
+
+    /**
+     * @return the {@code @Async} qualifier of the method or its declaring class, null if it has neither
+     */
+    private String qualifier(ExecutableElement method) {
+        String qualifier = asyncValue(method);
+        return qualifier != null ? qualifier : asyncValue(method.getEnclosingElement());
+    }
+
+    private boolean isOverridable(TypeElement type, ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        boolean declaredOnMethod = asyncValue(method) != null;
+        String problem = null;
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+            problem = "must be neither private, static nor final";
+        } else if (!modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.PROTECTED)) {
+            PackageElement pkg = processingEnv.getElementUtils().getPackageOf(method);
+            if (!pkg.equals(processingEnv.getElementUtils().getPackageOf(type))) {
+                problem = "must be visible from " + type.getQualifiedName();
+            }
+        }
+        if (problem == null) {
+            return true;
+        }
+        // a class level @Async only covers the methods that can be intercepted, as with a proxy
+        if (declaredOnMethod) {
+            error(method, "@Async method of an @AsyncDelegate class " + problem);
+        }
+        return false;
+    }
+
+    /**
+     * Reports {@code @Async} methods of superclasses that {@code type} does not inherit, package-private
+     * ones from another package, which would otherwise silently run on the caller's thread.
+     */
+    private void checkNotInherited(TypeElement type, List<ExecutableElement> members) {
+        TypeMirror superclass = type.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+            for (ExecutableElement method : ElementFilter.methodsIn(element.getEnclosedElements())) {
+                if (asyncValue(method) != null && !method.getModifiers().contains(Modifier.PRIVATE)
+                        && !members.contains(method)) {
+                    isOverridable(type, method);
+                }
+            }
+            superclass = element.getSuperclass();
+        }
+    }
+
+    private boolean isFuture(TypeMirror type) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        return isSame(erasure, "java.util.concurrent.Future") || isSame(erasure, "java.util.concurrent.CompletableFuture");
+    }
+
+    private boolean isSame(TypeMirror erasure, String typeName) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(typeName);
+        return processingEnv.getTypeUtils().isSameType(erasure, processingEnv.getTypeUtils().erasure(element.asType()));
+    }
+
+    private static String asyncValue(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(ASYNC)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value
+                        : annotation.getElementValues().entrySet()) {
+                    if (value.getKey().getSimpleName().contentEquals("value")) {
+                        return (String) value.getValue().getValue();
+                    }
+                }
+                return "";
+            }
+        }
+        return null;
+    }
+
+    private static List<? extends TypeMirror> parameterTypes(ExecutableElement executable) {
+        return ((ExecutableType) executable.asType()).getParameterTypes();
+    }
+
+    private static String parameters(ExecutableElement executable, List<? extends VariableElement> parameters,
+                                     List<? extends TypeMirror> types) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            TypeMirror type = types.get(i);
+            if (executable.isVarArgs() && i == parameters.size() - 1) {
+                result.append(((ArrayType) type).getComponentType()).append("...");
+            } else {
+                result.append(type);
+            }
+            result.append(' ').append(parameters.get(i).getSimpleName());
+        }
+        return result.toString();
+    }
+
+    private static String typeParameters(List<? extends TypeParameterElement> typeParameters) {
+        if (typeParameters.isEmpty()) {
+            return "";
+        }
+        List<String> declarations = new ArrayList<>();
+        for (TypeParameterElement typeParameter : typeParameters) {
+            List<String> bounds = new ArrayList<>();
+            for (TypeMirror bound : typeParameter.getBounds()) {
+                if (!bound.toString().equals("java.lang.Object")) {
+                    bounds.add(bound.toString());
+                }
+            }
+            declarations.add(bounds.isEmpty() ? typeParameter.getSimpleName().toString()
+                    : typeParameter.getSimpleName() + " extends " + String.join(" & ", bounds));
+        }
+        return "<" + String.join(", ", declarations) + "> ";
+    }
+
+    private static String throwsClause(List<? extends TypeMirror> thrownTypes) {
+        if (thrownTypes.isEmpty()) {
+            return "";
+        }
+        List<String> names = new ArrayList<>();
+        for (TypeMirror thrownType : thrownTypes) {
+            names.add(thrownType.toString());
+        }
+        return " throws " + String.join(", ", names);
+    }
+
+    static String fieldName(String qualifier, int index) {
+        if (qualifier.isEmpty()) {
+            return "defaultExecutor";
+        }
+        return SourceVersion.isName(qualifier) && !qualifier.contains(".") ? qualifier + "Executor" : "executor" + index;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,318 @@
+package org.mallim.java101.CompletableExecutor.processor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiles small {@code @AsyncDelegate} classes with the processor and checks that the generated
+ * delegates compile, or that the expected error is reported. Spring's {@code @Async} and the runtime
+ * classes the delegates call are stubbed with the same signatures.
+ */
+public class AsyncDelegateProcessorTest {
+
+    private static final String[] STUBS = {
+            "package org.springframework.scheduling.annotation;\n"
+                    + "import java.lang.annotation.*;\n"
+                    + "@Retention(RetentionPolicy.RUNTIME) @Target({ElementType.TYPE, ElementType.METHOD})\n"
+                    + "public @interface Async { String value() default \"\"; }\n",
+            "package org.mallim.java101.CompletableExecutor.async;\n"
+                    + "import java.util.concurrent.*;\n"
+                    + "public interface CompletableExecutorService extends ExecutorService {\n"
+                    + "    <T> CompletableFuture<T> submit(Callable<T> task);\n"
+                    + "}\n",
+            "package org.mallim.java101.CompletableExecutor.async;\n"
+                    + "import java.util.concurrent.*;\n"
+                    + "import java.util.function.Function;\n"
+                    + "public final class AsyncDelegates {\n"
+                    + "    public static CompletableExecutorService resolve(Function<String, ? extends Executor> executors, String qualifier) {\n"
+                    + "        return null;\n"
+                    + "    }\n"
+                    + "    public static <T> T await(Future<T> future) throws Exception {\n"
+                    + "        return null;\n"
+                    + "    }\n"
+                    + "}\n"
+    };
+
+    @Test
+    @DisplayName("Methods returning a future are submitted and awaited, per qualifier")
+    public void generatesFutureMethods() throws IOException {
+        Result result = compile(
+                "package demo;\n"
+                        + "import java.util.concurrent.*;\n"
+                        + "import org.springframework.scheduling.annotation.Async;\n"
+                        + "@org.mallim.java101.CompletableExecutor.processor.AsyncDelegate\n"
+                        + "public class Greeter {\n"
+                        + "    public Greeter(String name) {}\n"
+                        + "    @Async public CompletableFuture<String> hello() { return null; }\n"
+                        + "    @Async(\"timed\") public Future<Integer> count() { return null; }\n"
+                        + "    @Async(\"timed\") protected CompletableFuture<Void> later() { return null; }\n"
+                        + "    public CompletableFuture<String> direct() { return null; }\n"
+                        + "}\n");
+
+        result.assertCompiled();
+        String delegate = result.generated("demo.GreeterAsyncDelegate");
+        assertContains(delegate, "public GreeterAsyncDelegate(java.util.function.Function<String, ? extends java.util.concurrent.Executor> executors, java.lang.String name)");
+        assertContains(delegate, "this.defaultExecutor = org.mallim.java101.CompletableExecutor.async.AsyncDelegates.resolve(executors, \"\");");
+        assertContains(delegate, "this.timedExecutor = org.mallim.java101.CompletableExecutor.async.AsyncDelegates.resolve(executors, \"timed\");");
+        assertContains(delegate, "return this.timedExecutor.submit(() -> org.mallim.java101.CompletableExecutor.async.AsyncDelegates.await(super.count()));");
+        assertContains(delegate, "protected java.util.concurrent.CompletableFuture<java.lang.Void> later()");
+        assertTrue(!delegate.contains("direct()"), "methods without @Async are not overridden");
+    }
+
+    @Test
+    @DisplayName("Void methods are executed, with checked exceptions wrapped")
+    public void generatesVoidMethods() throws IOException {
+        Result result = compile(
+                "package demo;\n"
+                        + "import org.springframework.scheduling.annotation.Async;\n"
+                        + "@org.mallim.java101.CompletableExecutor.processor.AsyncDelegate\n"
+                        + "public class Notifier {\n"
+                        + "    @Async public void fire() {}\n"
+                        + "    @Async public void send(String to) throws java.io.IOException {}\n"
+                        + "}\n");
+
+        result.assertCompiled();
+        String delegate = result.generated("demo.NotifierAsyncDelegate");
+        assertContains(delegate, "this.defaultExecutor.execute(() -> super.fire());");
+        assertContains(delegate, "public void send(java.lang.String to) throws java.io.IOException {");
+        assertContains(delegate, "throw new java.lang.reflect.UndeclaredThrowableException(e);");
+    }
+
+    @Test
+    @DisplayName("A class level @Async covers the methods a proxy could intercept")
+    public void generatesClassLevelAsync() throws IOException {
+        Result result = compile(
+                "package demo;\n"
+                        + "import java.util.concurrent.CompletableFuture;\n"
+                        + "import org.springframework.scheduling.annotation.Async;\n"
+                        + "@org.mallim.java101.CompletableExecutor.processor.AsyncDelegate\n"
+                        + "@Async(\"background\")\n"
+                        + "public class Worker {\n"
+                        + "    public CompletableFuture<String> work() { return null; }\n"
+                        + "    @Async(\"critical\") public CompletableFuture<String> urgent() { return null; }\n"
+                        + "    public final CompletableFuture<String> fixed() { return null; }\n"
+                        + "    private CompletableFuture<String> hidden() { return null; }\n"
+                        + "    public static void helper() {}\n"
+                        + "}\n");
+
+        result.assertCompiled();
+        String delegate = result.generated("demo.WorkerAsyncDelegate");
+        assertContains(delegate, "return this.backgroundExecutor.submit(() -> org.mallim.java101.CompletableExecutor.async.AsyncDelegates.await(super.work()));");
+        assertContains(delegate, "return this.criticalExecutor.submit(");
+        assertTrue(!delegate.contains("fixed()") && !delegate.contains("hidden()") && !delegate.contains("helper()"),
+                "final, private and static methods are left alone");
+    }
+
+    @Test
+    @DisplayName("Varargs stay varargs")
+    public void generatesVarargs() throws IOException {
+        Result result = compile(
+                "package demo;\n"
+                        + "import java.util.concurrent.CompletableFuture;\n"
+                        + "import org.springframework.scheduling.annotation.Async;\n"
+                        + "@org.mallim.java101.CompletableExecutor.processor.AsyncDelegate\n"
+                        + "public class Joiner {\n"
+                        + "    @Async public CompletableFuture<String> join(String separator, String... parts) { return null; }\n"
+                        + "}\n",
+                "package demo;\n"
+                        + "class Caller {\n"
+                        + "    Object call(JoinerAsyncDelegate joiner) { return joiner.join(\",\", \"a\", \"b\"); }\n"
+                        + "}\n");
+
+        result.assertCompiled();
+        assertContains(result.generated("demo.JoinerAsyncDelegate"),
+                "join(java.lang.String separator, java.lang.String... parts)");
+    }
+
+    @Test
+    @DisplayName("Type parameters of the class and of methods are kept")
+    public void generatesGenerics() throws IOException {
+        Result result = compile(
+                "package demo;\n"
+                        + "import java.util.List;\n"
+                        + "import java.util.concurrent.CompletableFuture;\n"
+                        + "import org.springframework.scheduling.annotation.Async;\n"
+                        + "@org.mallim.java101.CompletableExecutor.processor.AsyncDelegate\n"
+                        + "public class Repository<K extends Comparable<K>, V> {\n"
+                        + "    @Async public CompletableFuture<V> find(K key) { return null; }\n"
+                        + "    @Async public <R extends Number> CompletableFuture<List<R>> sizes(List<? extends K> keys, Class<R> type) { return null; }\n"
+                        + "}\n",
+                "package demo;\n"
+                        + "class Caller {\n"
+                        + "    Repository<String, Integer> repository() { return new RepositoryAsyncDelegate<>(qualifier -> null); }\n"
+                        + "}\n");
+
+        result.assertCompiled();
+        String delegate = result.generated("demo.RepositoryAsyncDelegate");
+        assertContains(delegate, "public class RepositoryAsyncDelegate<K extends java.lang.Comparable<K>, V> extends demo.Repository<K,V> {");
+        assertContains(delegate, "public <R extends java.lang.Number> java.util.concurrent.CompletableFuture<java.util.List<R>> sizes(");
+    }
+
+    @Test
+    @DisplayName("Rejects final, abstract and nested classes")
+    public void rejectsClasses() throws IOException {
+        compile(annotatedClass("public final class Sealed"))
+                .assertError("@AsyncDelegate class must be neither final nor abstract");
+        compile(annotatedClass("public abstract class Partial"))
+                .assertError("@AsyncDelegate class must be neither final nor abstract");
+        compile("package demo;\n"
+                + "public class Outer {\n"
+                + "    @org.mallim.java101.CompletableExecutor.processor.AsyncDelegate\n"
+                + "    public static class Inner {}\n"
+                + "}\n")
+                .assertError("@AsyncDelegate must be on a top-level class");
+    }
+
+    @Test
+    @DisplayName("Rejects @Async methods it cannot override")
+    public void rejectsMethods() throws IOException {
+        String problem = "@Async method of an @AsyncDelegate class must be neither private, static nor final";
+        compile(asyncMethod("private CompletableFuture<String> run() { return null; }")).assertError(problem);
+        compile(asyncMethod("public static CompletableFuture<String> run() { return null; }")).assertError(problem);
+        compile(asyncMethod("public final CompletableFuture<String> run() { return null; }")).assertError(problem);
+    }
+
+    @Test
+    @DisplayName("Rejects @Async methods returning neither void nor a future")
+    public void rejectsReturnTypes() throws IOException {
+        compile(asyncMethod("public String run() { return null; }"))
+                .assertError("@Async method of an @AsyncDelegate class must return void, Future or CompletableFuture");
+    }
+
+    @Test
+    @DisplayName("Rejects inherited package-private @Async methods from another package")
+    public void rejectsInvisibleMethods() throws IOException {
+        compile("package base;\n"
+                        + "public class Base {\n"
+                        + "    @org.springframework.scheduling.annotation.Async void run() {}\n"
+                        + "}\n",
+                "package demo;\n"
+                        + "@org.mallim.java101.CompletableExecutor.processor.AsyncDelegate\n"
+                        + "public class Derived extends base.Base {}\n")
+                .assertError("@Async method of an @AsyncDelegate class must be visible from demo.Derived");
+    }
+
+    private static String annotatedClass(String declaration) {
+        return "package demo;\n"
+                + "@org.mallim.java101.CompletableExecutor.processor.AsyncDelegate\n"
+                + declaration + " {}\n";
+    }
+
+    private static String asyncMethod(String method) {
+        return "package demo;\n"
+                + "import java.util.concurrent.CompletableFuture;\n"
+                + "@org.mallim.java101.CompletableExecutor.processor.AsyncDelegate\n"
+                + "public class Service {\n"
+                + "    @org.springframework.scheduling.annotation.Async " + method + "\n"
+                + "}\n";
+    }
+
+    private static void assertContains(String source, String expected) {
+        assertTrue(source.contains(expected), () -> "expected\n" + expected + "\nin\n" + source);
+    }
+
+    private static Result compile(String... sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Path classes = Files.createTempDirectory("processor-classes");
+        Path generated = Files.createTempDirectory("processor-sources");
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+            files.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singleton(classes.toFile()));
+            files.setLocation(StandardLocation.SOURCE_OUTPUT, Collections.singleton(generated.toFile()));
+            List<JavaFileObject> units = new ArrayList<>();
+            for (String source : STUBS) {
+                units.add(new Source(source));
+            }
+            for (String source : sources) {
+                units.add(new Source(source));
+            }
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics, null, null, units);
+            task.setProcessors(Collections.singleton(new AsyncDelegateProcessor()));
+            boolean success = task.call();
+            return new Result(success, diagnostics.getDiagnostics(), generated);
+        }
+    }
+
+    private static final class Result {
+        private final boolean success;
+        private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+        private final Path generated;
+
+        Result(boolean success, List<Diagnostic<? extends JavaFileObject>> diagnostics, Path generated) {
+            this.success = success;
+            this.diagnostics = diagnostics;
+            this.generated = generated;
+        }
+
+        void assertCompiled() {
+            assertTrue(success, () -> "compilation failed: " + errors());
+        }
+
+        void assertError(String message) {
+            assertTrue(!success, "compilation should have failed");
+            assertEquals(Collections.singletonList(message), errors());
+        }
+
+        String generated(String className) throws IOException {
+            Path source = generated.resolve(className.replace('.', '/') + ".java");
+            return new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+        }
+
+        private List<String> errors() {
+            return diagnostics.stream()
+                    .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                    .map(diagnostic -> diagnostic.getMessage(Locale.ROOT))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+        private static final Pattern PACKAGE = Pattern.compile("package ([\\w.]+);");
+        private static final Pattern TYPE = Pattern.compile("\\b(?:class|interface) (\\w+)");
+
+        private final String code;
+
+        Source(String code) {
+            super(URI.create("string:///" + className(code).replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+
+        private static String className(String code) {
+            Matcher pkg = PACKAGE.matcher(code);
+            Matcher type = TYPE.matcher(code);
+            if (!pkg.find() || !type.find()) {
+                throw new IllegalArgumentException("No package or type in " + code);
+            }
+            return pkg.group(1) + "." + type.group(1);
+        }
+    }
+}
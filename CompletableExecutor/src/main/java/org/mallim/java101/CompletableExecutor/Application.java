@@ -1,21 +1,36 @@
 package org.mallim.java101.CompletableExecutor;
 
+import org.mallim.java101.CompletableExecutor.config.LoadProperties;
+import org.mallim.java101.CompletableExecutor.config.SpringAsyncConfig;
 import org.mallim.java101.CompletableExecutor.service.AsyncService;
+import org.mallim.java101.CompletableExecutor.service.AsyncServiceAsyncDelegate;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
+import java.util.concurrent.Executor;
+
 @SpringBootApplication
+@EnableConfigurationProperties(LoadProperties.class)
 public class Application {
 
+    /**
+     * Generated subclass that submits the {@code @Async} methods straight to their executors, so calls
+     * skip the proxy, its reflection and the executor lookup. The non-blocking greetings continue on
+     * the default executor.
+     */
     @Bean
-    public AsyncService asyncService() {
-        return new AsyncService();
+    public AsyncService asyncService(BeanFactory beanFactory) {
+        return new AsyncServiceAsyncDelegate(qualifier -> beanFactory.getBean(
+                qualifier.isEmpty() ? SpringAsyncConfig.DEFAULT_EXECUTOR : qualifier, Executor.class),
+                beanFactory.getBean(SpringAsyncConfig.DEFAULT_EXECUTOR, Executor.class));
     }
 
     @Bean
-    public Runner runner(AsyncService asyncService) {
-        return new Runner(asyncService);
+    public Runner runner(AsyncService asyncService, LoadProperties loadProperties) {
+        return new Runner(asyncService, loadProperties);
     }
 
     public static void main(String[] args) {
@@ -1,31 +1,222 @@
 package org.mallim.java101.CompletableExecutor;
 
 import lombok.extern.slf4j.Slf4j;
+import org.mallim.java101.CompletableExecutor.async.ExecutionContext;
+import org.mallim.java101.CompletableExecutor.async.LatencyHistogram;
+import org.mallim.java101.CompletableExecutor.config.LoadProperties;
 import org.mallim.java101.CompletableExecutor.service.AsyncService;
 import org.springframework.boot.CommandLineRunner;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
+/**
+ * Calls {@link AsyncService} as configured by {@link LoadProperties}: a short demo by default, or
+ * sustained load in open or closed mode with a latency summary at the end.
+ * <p>
+ * In open mode every call has an intended start time on a fixed schedule and its latency is
+ * measured from there, so a call that starts late because the generator or the executors fell
+ * behind is charged for the wait instead of hiding it (coordinated omission).
+ */
 @Slf4j
 public class Runner implements CommandLineRunner {
 
     private AsyncService asyncService;
+    private LoadProperties load;
 
-    public Runner(AsyncService asyncService) {
+    public Runner(AsyncService asyncService, LoadProperties load) {
         this.asyncService = asyncService;
+        this.load = load;
     }
 
     @Override
     public void run(String... args) throws Exception {
         log.info("Going to start run...");
-        IntStream.rangeClosed(1, 10)
-                .mapToObj(__ -> asyncService.asyncTimeoutGreeting().exceptionally(Throwable::getMessage))
-                .forEach(this::printResult);
+        switch (load.getMode()) {
+            case OPEN:
+                report(openLoop());
+                break;
+            case CLOSED:
+                report(closedLoop());
+                break;
+            default:
+                IntStream.rangeClosed(1, 10).forEach(this::greet);
+        }
         log.info("Running completed.");
     }
 
+    private void greet(int request) {
+        try (ExecutionContext.Scope scope = ExecutionContext.open("requestId", "req-" + request)) {
+            printResult(asyncService.asyncTimeoutGreeting().exceptionally(Throwable::getMessage));
+        }
+    }
+
     private void printResult(CompletableFuture<String> future) {
         future.thenRun(() -> log.info(future.join()));
     }
+
+    private Result openLoop() throws InterruptedException {
+        checkPeriods();
+        // at most one call per nanosecond, the resolution of the schedule
+        if (!(load.getRate() > 0 && load.getRate() <= TimeUnit.SECONDS.toNanos(1))) {
+            throw new IllegalArgumentException("load.rate must be above 0 and at most 1e9 calls/s: " + load.getRate());
+        }
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / load.getRate());
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(load.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(load.getDurationSeconds());
+        Result result = new Result(measureFrom, end);
+        log.info("Open loop at {} calls/s for {} s after {} s warmup", load.getRate(), load.getDurationSeconds(),
+                load.getWarmupSeconds());
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            result.started();
+            call(request(i)).whenComplete((greeting, ex) -> result.finished(intended, ex));
+        }
+        result.awaitOutstanding();
+        return result;
+    }
+
+    private Result closedLoop() throws InterruptedException {
+        checkPeriods();
+        if (load.getConcurrency() <= 0) {
+            throw new IllegalArgumentException("load.concurrency must be positive: " + load.getConcurrency());
+        }
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(load.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(load.getDurationSeconds());
+        Result result = new Result(measureFrom, end);
+        log.info("Closed loop with {} callers for {} s after {} s warmup", load.getConcurrency(),
+                load.getDurationSeconds(), load.getWarmupSeconds());
+
+        // next calls are started from here, never from the thread that completed the last one
+        ExecutorService issuer = Executors.newSingleThreadExecutor(r -> new Thread(r, "load-generator"));
+        // a caller stops on the issuer once its last call has finished, so nothing is queued to it any more
+        CountDownLatch callers = new CountDownLatch(load.getConcurrency());
+        try {
+            for (int caller = 0; caller < load.getConcurrency(); caller++) {
+                issuer.execute(() -> callAgain(result, end, issuer, callers));
+            }
+            callers.await();
+        } finally {
+            issuer.shutdown();
+        }
+        return result;
+    }
+
+    private void callAgain(Result result, long end, ExecutorService issuer, CountDownLatch callers) {
+        long sent = System.nanoTime();
+        if (sent - end >= 0) {
+            callers.countDown();
+            return;
+        }
+        result.started();
+        call(request(sent)).whenCompleteAsync((greeting, ex) -> {
+            result.finished(sent, ex);
+            callAgain(result, end, issuer, callers);
+        }, issuer);
+    }
+
+    private void checkPeriods() {
+        if (load.getWarmupSeconds() < 0) {
+            throw new IllegalArgumentException("load.warmup-seconds must not be negative: " + load.getWarmupSeconds());
+        }
+        if (load.getDurationSeconds() <= 0) {
+            throw new IllegalArgumentException("load.duration-seconds must be positive: " + load.getDurationSeconds());
+        }
+    }
+
+    private Supplier<CompletableFuture<String>> request(long id) {
+        return () -> {
+            try (ExecutionContext.Scope scope = ExecutionContext.open("requestId", "load-" + id)) {
+                switch (load.getCall()) {
+                    case ASYNC:
+                        return asyncService.asyncGreeting();
+                    case DELAYED:
+                        return asyncService.delayedGreeting();
+                    case DELAYED_TIMEOUT:
+                        return asyncService.delayedTimeoutGreeting();
+                    default:
+                        return asyncService.asyncTimeoutGreeting();
+                }
+            }
+        };
+    }
+
+    private static CompletableFuture<String> call(Supplier<CompletableFuture<String>> request) {
+        try {
+            return request.get();
+        } catch (RuntimeException e) {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private void report(Result result) {
+        LatencyHistogram.Snapshot latency = result.latency.snapshot();
+        double seconds = load.getDurationSeconds();
+        log.info("{} mode, {} calls: {} measured, {} failed, {} calls/s",
+                load.getMode(), load.getCall(), latency.getCount(), result.failed.sum(),
+                String.format("%.1f", latency.getCount() / seconds));
+        log.info("latency ms: p50={} p90={} p99={} p99.9={} max={}",
+                millis(latency.getP50()), millis(latency.percentile(90)), millis(latency.getP99()),
+                millis(latency.getP999()), millis(latency.getMax()));
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1e6);
+    }
+
+    /**
+     * Latency of the calls started within the measured period, after warmup.
+     */
+    private static final class Result {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder failed = new LongAdder();
+        final LongAdder outstanding = new LongAdder();
+        final long measureFrom;
+        final long measureTo;
+
+        Result(long measureFrom, long measureTo) {
+            this.measureFrom = measureFrom;
+            this.measureTo = measureTo;
+        }
+
+        void started() {
+            outstanding.increment();
+        }
+
+        void finished(long sent, Throwable ex) {
+            long now = System.nanoTime();
+            if (sent - measureFrom >= 0 && sent - measureTo < 0) {
+                latency.record(now - sent);
+                if (ex != null) {
+                    failed.increment();
+                }
+            }
+            outstanding.decrement();
+        }
+
+        void awaitOutstanding() throws InterruptedException {
+            while (outstanding.sum() > 0) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        }
+    }
 }
@@ -0,0 +1,182 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Completable executor that sheds load above an in-flight limit learned from observed latency.
+ * <p>
+ * Every {@value #WINDOW} completions the limit is moved by the gradient between the lowest and the
+ * recent round-trip time (submit to completion, so queueing counts): it grows while latency stays at
+ * its baseline and shrinks as soon as queues start to build. The baseline drifts up slowly so that a
+ * downstream that got slower for good is eventually accepted as the new normal. Timeouts in the window cut the limit
+ * multiplicatively. Submissions over the limit get an already failed future with a
+ * {@link LimitExceededException}, so overload never grows the delegate's queue; {@link #execute} over
+ * the limit throws it.
+ * <p>
+ * Inspired by:
+ * https://github.com/Netflix/concurrency-limits
+ */
+public class AdaptiveLimitExecutorService extends DelegatingCompletableExecutorService {
+
+    private static final int WINDOW = 50;
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double BASELINE_DRIFT_PER_SECOND = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicBoolean updating = new AtomicBoolean();
+    private final LongAdder windowRtt = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAdder windowDrops = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile double estimatedLimit;
+    private volatile int limit;
+    private double baselineRtt;
+    private long lastUpdate = System.nanoTime();
+
+    AdaptiveLimitExecutorService(ExecutorService delegate, int initialLimit, int minLimit, int maxLimit) {
+        super(delegate);
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("expected 0 < minLimit <= initialLimit <= maxLimit but was "
+                    + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+        if (!tryAcquire()) {
+            rejected.increment();
+            task.completeExceptionally(new LimitExceededException("Concurrency limit of " + limit + " reached"));
+            return task;
+        }
+        long start = System.nanoTime();
+        try {
+            forward(task);
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+        task.whenComplete((result, ex) -> release(System.nanoTime() - start, ex));
+        return task;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (!tryAcquire()) {
+            rejected.increment();
+            throw new LimitExceededException("Concurrency limit of " + limit + " reached");
+        }
+        Runnable task = ExecutionContext.wrap(command);
+        long start = System.nanoTime();
+        // a delegate that runs the command on the caller's thread rethrows its failure, release once
+        AtomicBoolean released = new AtomicBoolean();
+        try {
+            delegate.execute(() -> {
+                Throwable failure = null;
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                    throw e;
+                } finally {
+                    if (released.compareAndSet(false, true)) {
+                        release(System.nanoTime() - start, failure != null ? failure : CompletableFutures.failureOf(command));
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+            throw e;
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(long rttNanos, Throwable ex) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+        if (cause instanceof CancellationException) {
+            return;
+        }
+        if (cause instanceof TimeoutException) {
+            windowDrops.increment();
+        } else {
+            windowRtt.add(rttNanos);
+            windowSamples.increment();
+        }
+        if (samples.incrementAndGet() % WINDOW == 0 && updating.compareAndSet(false, true)) {
+            try {
+                updateLimit(inFlightBefore);
+            } finally {
+                updating.set(false);
+            }
+        }
+    }
+
+    // only ever run by one thread at a time, guarded by updating
+    private void updateLimit(int inFlightNow) {
+        long count = windowSamples.sumThenReset();
+        long rttSum = windowRtt.sumThenReset();
+        long drops = windowDrops.sumThenReset();
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastUpdate) / 1e9;
+        lastUpdate = now;
+        double current = estimatedLimit;
+        double next;
+        if (drops > 0 || count == 0) {
+            next = current * BACKOFF_RATIO;
+        } else {
+            double shortRtt = (double) rttSum / count;
+            baselineRtt = baselineRtt == 0 ? shortRtt : Math.min(shortRtt, baselineRtt * (1 + BASELINE_DRIFT_PER_SECOND * elapsedSeconds));
+            if (inFlightNow < current / 2) {
+                // app limited, latency tells nothing about a higher limit
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineRtt / shortRtt));
+            next = current * gradient + Math.sqrt(current);
+            next = current * (1 - SMOOTHING) + next * SMOOTHING;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,57 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Runtime support for the {@code <Type>AsyncDelegate} classes generated for {@code @AsyncDelegate} types.
+ * <p>
+ * The generated methods keep the semantics of Spring's {@code AsyncExecutionInterceptor}: the future
+ * returned by the method body is awaited on the pool thread and fails with the cause of its failure.
+ */
+public final class AsyncDelegates {
+
+    private AsyncDelegates() {
+    }
+
+    /**
+     * Resolves the executor of an {@code @Async} qualifier once, when the delegate is built.
+     *
+     * @param qualifier value of {@code @Async}, empty for the default executor
+     */
+    public static CompletableExecutorService resolve(Function<String, ? extends Executor> executors, String qualifier) {
+        Executor executor = executors.apply(qualifier);
+        if (executor instanceof CompletableExecutorService) {
+            return (CompletableExecutorService) executor;
+        }
+        if (executor instanceof ExecutorService) {
+            return CompletableExecutors.completable((ExecutorService) executor);
+        }
+        throw new IllegalArgumentException("No ExecutorService for @Async(\"" + qualifier + "\"): " + executor);
+    }
+
+    /**
+     * @return the value of the future returned by an {@code @Async} method body, or null if it returned none
+     */
+    public static <T> T await(Future<T> future) throws Exception {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new UndeclaredThrowableException(cause);
+        }
+    }
+}
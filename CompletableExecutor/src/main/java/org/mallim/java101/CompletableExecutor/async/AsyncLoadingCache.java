@@ -0,0 +1,312 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Cache of {@code CompletableFuture} values, loaded asynchronously on a miss.
+ * <p>
+ * The future itself is cached, so concurrent gets of a missing key share one in-flight load; a
+ * load that fails is removed again and the next get retries it. Every caller gets its own dependent
+ * of the cached future, so cancelling or completing it does not affect the other callers. Entries
+ * expire after the ttl and are refreshed ahead of it in the background, see {@link CachePolicy}; a
+ * load still running after the ttl fails with a {@link TimeoutException} and is removed as well.
+ * <p>
+ * Above the maximum weight, the oldest entry and the newly loaded one compete by estimated access
+ * frequency (TinyLFU): the loser is evicted, so a burst of one-off keys cannot flush the popular
+ * ones. Callers of a rejected entry still get its value.
+ * <p>
+ * {@link #memoize} turns an {@code @Async} method into a cached function:
+ * <pre>
+ * Function&lt;String, CompletableFuture&lt;User&gt;&gt; findUser =
+ *         AsyncLoadingCache.memoize(gitHubLookupService::findUser, CachePolicy.maximumWeight(1_000));
+ * </pre>
+ */
+public final class AsyncLoadingCache<K, V> {
+
+    private final Function<? super K, ? extends CompletableFuture<V>> loader;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final CachePolicy policy;
+    private final ConcurrentMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final FrequencySketch sketch;
+    private final AtomicLong weight = new AtomicLong();
+    private final Object evictionLock = new Object();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private AsyncLoadingCache(Function<? super K, ? extends CompletableFuture<V>> loader,
+                              ToIntBiFunction<? super K, ? super V> weigher, CachePolicy policy) {
+        this.loader = loader;
+        this.weigher = weigher;
+        this.policy = policy;
+        this.sketch = new FrequencySketch(Math.min(policy.getMaximumWeight(), 1 << 20));
+    }
+
+    public static <K, V> AsyncLoadingCache<K, V> of(Function<? super K, ? extends CompletableFuture<V>> loader,
+                                                    CachePolicy policy) {
+        return new AsyncLoadingCache<>(loader, (key, value) -> 1, policy);
+    }
+
+    public static <K, V> AsyncLoadingCache<K, V> of(Function<? super K, ? extends CompletableFuture<V>> loader,
+                                                    CachePolicy policy, ToIntBiFunction<? super K, ? super V> weigher) {
+        return new AsyncLoadingCache<>(loader, weigher, policy);
+    }
+
+    /**
+     * @return {@code function} with its results cached by argument
+     */
+    public static <K, V> Function<K, CompletableFuture<V>> memoize(
+            Function<? super K, ? extends CompletableFuture<V>> function, CachePolicy policy) {
+        return of(function, policy)::get;
+    }
+
+    public CompletableFuture<V> get(K key) {
+        sketch.increment(key);
+        while (true) {
+            Entry<K, V> entry = entries.get(key);
+            if (entry == null) {
+                Entry<K, V> loading = new Entry<>(key);
+                entry = entries.putIfAbsent(key, loading);
+                if (entry == null) {
+                    misses.increment();
+                    load(loading);
+                    return copy(loading.future);
+                }
+            }
+            long age = entry.age();
+            if (age >= policy.getTtlNanos()) {
+                // expired, whoever removes it loads the fresh value on the next turn
+                expire(entry);
+                continue;
+            }
+            hits.increment();
+            if (age >= policy.getRefreshAfterNanos() && entry.startRefresh()) {
+                refresh(entry);
+            }
+            return copy(entry.future);
+        }
+    }
+
+    /**
+     * @return the cached future, or {@code null} if the key is absent or expired; never loads
+     */
+    public CompletableFuture<V> getIfPresent(K key) {
+        Entry<K, V> entry = entries.get(key);
+        return entry == null || entry.age() >= policy.getTtlNanos() ? null : copy(entry.future);
+    }
+
+    public void invalidate(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getWeight() {
+        return weight.get();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private void load(Entry<K, V> entry) {
+        // whatever fails the entry, the loader or the ttl, takes it out so the next get retries
+        entry.future.whenComplete((value, ex) -> {
+            if (ex != null) {
+                remove(entry);
+            }
+        });
+        if (policy.getTtlNanos() != Long.MAX_VALUE) {
+            HashedWheelTimer.Timeout scheduled = HashedWheelTimer.shared().schedule(() -> expire(entry),
+                    policy.getTtlNanos(), TimeUnit.NANOSECONDS, ForkJoinPool.commonPool());
+            entry.future.whenComplete((value, ex) -> scheduled.cancel());
+        }
+        CompletableFuture<V> loaded;
+        try {
+            loaded = loader.apply(entry.key);
+        } catch (RuntimeException e) {
+            entry.future.completeExceptionally(e);
+            return;
+        }
+        loaded.whenComplete((value, ex) -> {
+            if (ex != null) {
+                entry.future.completeExceptionally(ex);
+                return;
+            }
+            entry.loaded(weigher.applyAsInt(entry.key, value));
+            if (entry.future.complete(value)) {
+                admit(entry);
+            }
+        });
+    }
+
+    /**
+     * Removes an entry older than the ttl, and fails it if it is still loading.
+     */
+    private void expire(Entry<K, V> entry) {
+        remove(entry);
+        if (!entry.future.isDone()) {
+            entry.future.completeExceptionally(new TimeoutException(
+                    "Load of " + entry.key + " not done within " + Duration.ofNanos(policy.getTtlNanos())));
+        }
+    }
+
+    /**
+     * @return a dependent of the cached future, so a caller cannot complete or cancel it for the others
+     */
+    private static <V> CompletableFuture<V> copy(CompletableFuture<V> future) {
+        return future.thenApply(Function.identity());
+    }
+
+    /**
+     * Loads a fresh value while {@code stale} keeps being served; a failed refresh keeps the stale one.
+     */
+    private void refresh(Entry<K, V> stale) {
+        Entry<K, V> fresh = new Entry<>(stale.key);
+        CompletableFuture<V> loaded;
+        try {
+            loaded = loader.apply(stale.key);
+        } catch (RuntimeException e) {
+            stale.refreshFailed();
+            return;
+        }
+        loaded.whenComplete((value, ex) -> {
+            if (ex != null) {
+                stale.refreshFailed();
+                return;
+            }
+            fresh.loaded(weigher.applyAsInt(fresh.key, value));
+            fresh.future.complete(value);
+            if (entries.replace(stale.key, stale, fresh)) {
+                release(stale);
+                admit(fresh);
+            }
+        });
+    }
+
+    private void admit(Entry<K, V> candidate) {
+        synchronized (candidate) {
+            if (candidate.removed) {
+                return;
+            }
+            candidate.admitted = true;
+            weight.addAndGet(candidate.weight);
+        }
+        insertionOrder.add(candidate);
+        if (weight.get() <= policy.getMaximumWeight()) {
+            return;
+        }
+        synchronized (evictionLock) {
+            while (weight.get() > policy.getMaximumWeight()) {
+                Entry<K, V> victim = insertionOrder.peek();
+                if (victim == null) {
+                    return;
+                }
+                if (victim.removed || entries.get(victim.key) != victim) {
+                    insertionOrder.poll();
+                    continue;
+                }
+                if (victim != candidate && !candidate.removed
+                        && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                    // the newcomer is not used more than the oldest entry, so it goes instead
+                    victim = candidate;
+                } else {
+                    insertionOrder.poll();
+                }
+                if (remove(victim)) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private boolean remove(Entry<K, V> entry) {
+        if (!entries.remove(entry.key, entry)) {
+            return false;
+        }
+        release(entry);
+        return true;
+    }
+
+    /**
+     * Takes an entry that left the map out of the weight, if it was ever counted in.
+     */
+    private void release(Entry<K, V> entry) {
+        synchronized (entry) {
+            entry.removed = true;
+            if (entry.admitted) {
+                weight.addAndGet(-entry.weight);
+            }
+        }
+    }
+
+    private static final class Entry<K, V> {
+        static final long LOADING = Long.MIN_VALUE;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Entry> REFRESHING =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "refreshing");
+
+        final K key;
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final long createdAt = System.nanoTime();
+        volatile long loadedAt = LOADING;
+        volatile int weight;
+        volatile int refreshing;
+        // guarded by this entry
+        volatile boolean removed;
+        boolean admitted;
+
+        Entry(K key) {
+            this.key = key;
+        }
+
+        void loaded(int weight) {
+            this.weight = weight;
+            this.loadedAt = System.nanoTime();
+        }
+
+        /**
+         * @return nanoseconds since the value was loaded, or since the load started while it is still
+         * loading
+         */
+        long age() {
+            long at = loadedAt;
+            return System.nanoTime() - (at == LOADING ? createdAt : at);
+        }
+
+        boolean startRefresh() {
+            return REFRESHING.compareAndSet(this, 0, 1);
+        }
+
+        void refreshFailed() {
+            refreshing = 0;
+        }
+    }
+}
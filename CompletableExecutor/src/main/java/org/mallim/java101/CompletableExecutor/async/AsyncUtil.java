@@ -3,8 +3,12 @@ package org.mallim.java101.CompletableExecutor.async;
 import com.google.common.base.Throwables;
 
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class AsyncUtil {
 
@@ -24,6 +28,66 @@ public class AsyncUtil {
         }
     }
 
+    /**
+     * Non-blocking {@link #sleep}: the future completes on the shared timer thread after
+     * {@code duration}, so stages that do more than a little work should run async.
+     * Cancelling the future cancels the timer.
+     */
+    public static CompletableFuture<Void> delay(Duration duration) {
+        return delay(duration.toNanos(), TimeUnit.NANOSECONDS, null);
+    }
+
+    /**
+     * Like {@link #delay(Duration)}, with the future completed on {@code executor}.
+     */
+    public static CompletableFuture<Void> delay(Duration duration, Executor executor) {
+        return delay(duration.toNanos(), TimeUnit.NANOSECONDS, executor);
+    }
+
+    /**
+     * Non-blocking {@link #randomSleep}.
+     */
+    public static CompletableFuture<Void> randomDelay(int duration, TimeUnit timeUnit) {
+        return delay(ThreadLocalRandom.current().nextInt(duration), timeUnit, null);
+    }
+
+    /**
+     * Like {@link #randomDelay(int, TimeUnit)}, with the future completed on {@code executor}.
+     */
+    public static CompletableFuture<Void> randomDelay(int duration, TimeUnit timeUnit, Executor executor) {
+        return delay(ThreadLocalRandom.current().nextInt(duration), timeUnit, executor);
+    }
+
+    /**
+     * Fails {@code future} with a {@link TimeoutException} if it is not done within {@code timeout}.
+     * The timeout completes the future on the common pool, so its non-async dependents run there
+     * rather than on the shared timer thread.
+     *
+     * @return {@code future}
+     */
+    public static <T> CompletableFuture<T> within(CompletableFuture<T> future, Duration timeout) {
+        HashedWheelTimer.Timeout expiry = HashedWheelTimer.shared().schedule(
+                () -> future.completeExceptionally(new TimeoutException("Timeout after " + timeout)),
+                timeout.toNanos(), TimeUnit.NANOSECONDS, ForkJoinPool.commonPool());
+        future.whenComplete((result, ex) -> expiry.cancel());
+        return future;
+    }
+
+    private static CompletableFuture<Void> delay(long delay, TimeUnit timeUnit, Executor executor) {
+        CompletableFuture<Void> cf = new CompletableFuture<>();
+        // the caller's log context goes along to the stages that run on the timer thread
+        Runnable complete = ExecutionContext.wrap((Runnable) () -> cf.complete(null));
+        HashedWheelTimer.Timeout timeout = HashedWheelTimer.shared().schedule(executor == null ? complete : () -> {
+            try {
+                executor.execute(complete);
+            } catch (RuntimeException e) {
+                cf.completeExceptionally(e);
+            }
+        }, delay, timeUnit);
+        cf.whenComplete((result, ex) -> timeout.cancel());
+        return cf;
+    }
+
     public static String getThreadName() {
         return Thread.currentThread().getName();
     }
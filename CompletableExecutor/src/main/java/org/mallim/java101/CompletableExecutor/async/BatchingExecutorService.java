@@ -0,0 +1,53 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * Completable executor that coalesces submitted tasks, so a batch of small tasks costs one queue
+ * hand-off and one wake-up on the delegate instead of one per task.
+ * <p>
+ * {@link #batcher(Function)} gives the same windowing for items that are better processed together,
+ * e.g. one bulk lookup instead of many single ones.
+ */
+public class BatchingExecutorService extends DelegatingCompletableExecutorService {
+
+    private final int maxBatchSize;
+    private final Duration window;
+    private final HashedWheelTimer timer;
+    private final MicroBatcher<CompletableTask<?>, Void> tasks;
+
+    BatchingExecutorService(ExecutorService delegate, int maxBatchSize, Duration window) {
+        super(delegate);
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+        this.timer = HashedWheelTimer.shared();
+        this.tasks = new MicroBatcher<>(delegate, timer, maxBatchSize, window, slots -> {
+            for (MicroBatcher.Slot<CompletableTask<?>, Void> slot : slots) {
+                // a cancelled task skips itself, a running one is interrupted without harming the rest
+                slot.item.run();
+            }
+        });
+    }
+
+    @Override
+    <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+        // the slot only ever completes by itself when its batch was rejected
+        tasks.submit(task).whenComplete((result, ex) -> {
+            if (ex != null) {
+                task.completeExceptionally(ex);
+            }
+        });
+        return task;
+    }
+
+    /**
+     * @param batchFunction maps a batch of items to one result per item, in the same order
+     */
+    public <I, O> MicroBatcher<I, O> batcher(Function<List<I>, List<O>> batchFunction) {
+        return MicroBatcher.of(delegate, timer, maxBatchSize, window, batchFunction);
+    }
+}
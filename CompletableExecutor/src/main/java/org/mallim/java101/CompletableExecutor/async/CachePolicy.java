@@ -0,0 +1,77 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+
+/**
+ * Bounds of an {@link AsyncLoadingCache}: total weight, time to live and refresh-ahead.
+ * <pre>
+ * CachePolicy.maximumWeight(10_000)
+ *         .withTtl(Duration.ofMinutes(5))
+ *         .withRefreshAfter(Duration.ofMinutes(4));
+ * </pre>
+ * Instances are immutable, every {@code with} method returns a new policy.
+ */
+public final class CachePolicy {
+
+    private final long maximumWeight;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+
+    private CachePolicy(long maximumWeight, long ttlNanos, long refreshAfterNanos) {
+        this.maximumWeight = maximumWeight;
+        this.ttlNanos = ttlNanos;
+        this.refreshAfterNanos = refreshAfterNanos;
+    }
+
+    /**
+     * Keeps entries until the total weight exceeds {@code maximumWeight}; without a weigher every
+     * entry weighs 1, so this is the maximum size.
+     */
+    public static CachePolicy maximumWeight(long maximumWeight) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive: " + maximumWeight);
+        }
+        return new CachePolicy(maximumWeight, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Entries older than {@code ttl} are loaded again on the next get.
+     */
+    public CachePolicy withTtl(Duration ttl) {
+        return new CachePolicy(maximumWeight, positive(ttl), refreshAfterNanos);
+    }
+
+    /**
+     * A get of an entry older than {@code refreshAfter} still returns it, and starts loading a
+     * fresh value in the background; pick it below the ttl so popular entries never expire.
+     */
+    public CachePolicy withRefreshAfter(Duration refreshAfter) {
+        return new CachePolicy(maximumWeight, ttlNanos, positive(refreshAfter));
+    }
+
+    long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    long getTtlNanos() {
+        return ttlNanos;
+    }
+
+    long getRefreshAfterNanos() {
+        return refreshAfterNanos;
+    }
+
+    private static long positive(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("duration must be positive: " + duration);
+        }
+        return duration.toNanos();
+    }
+
+    @Override
+    public String toString() {
+        return "CachePolicy{maximumWeight=" + maximumWeight
+                + ", ttl=" + (ttlNanos == Long.MAX_VALUE ? "none" : Duration.ofNanos(ttlNanos))
+                + ", refreshAfter=" + (refreshAfterNanos == Long.MAX_VALUE ? "none" : Duration.ofNanos(refreshAfterNanos)) + "}";
+    }
+}
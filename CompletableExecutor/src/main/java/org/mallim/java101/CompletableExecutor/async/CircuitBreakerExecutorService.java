@@ -0,0 +1,254 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Completable executor that stops calling a failing downstream for a while.
+ * <p>
+ * While {@link State#CLOSED} the outcome of the last calls, failed and slow, is kept in a sliding
+ * window; when either rate reaches its threshold the breaker opens. While {@link State#OPEN} every
+ * submit returns a future that already failed with a {@link CircuitOpenException}, on the caller's
+ * thread and without touching the delegate, and {@link #execute} throws it. After the open duration the breaker is
+ * {@link State#HALF_OPEN} and lets a few trial calls through: it closes if they do well and opens
+ * again if not, or if they take longer than the policy's maximum half-open duration. Cancelled calls
+ * are not counted and give their trial back.
+ * <p>
+ * Transitions are reported to the listeners added with {@link #addListener(Listener)}.
+ * <p>
+ * Inspired by:
+ * https://resilience4j.readme.io/docs/circuitbreaker
+ */
+public class CircuitBreakerExecutorService extends DelegatingCompletableExecutorService {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Called on the thread that caused the transition; it must be quick.
+     */
+    public interface Listener {
+        void onStateChange(State from, State to);
+    }
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final CircuitBreakerPolicy policy;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder notPermitted = new LongAdder();
+    private volatile long openedAt;
+    private volatile long halfOpenedAt;
+
+    // sliding window, guarded by this
+    private final byte[] outcomes;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    CircuitBreakerExecutorService(String name, ExecutorService delegate, CircuitBreakerPolicy policy) {
+        super(delegate);
+        this.name = name;
+        this.policy = policy;
+        this.outcomes = new byte[policy.getWindowSize()];
+    }
+
+    @Override
+    <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+        State permittedIn = tryAcquirePermission();
+        if (permittedIn == null) {
+            notPermitted.increment();
+            task.completeExceptionally(new CircuitOpenException("Circuit breaker " + name + " is open"));
+            return task;
+        }
+        long start = System.nanoTime();
+        try {
+            forward(task);
+        } catch (RuntimeException e) {
+            onResult(permittedIn, 0, e);
+            throw e;
+        }
+        task.whenComplete((result, ex) -> onResult(permittedIn, System.nanoTime() - start, ex));
+        return task;
+    }
+
+    /**
+     * Guarded like a submission: throws a {@link CircuitOpenException} while open, and the command's
+     * outcome counts in the window.
+     */
+    @Override
+    public void execute(Runnable command) {
+        State permittedIn = tryAcquirePermission();
+        if (permittedIn == null) {
+            notPermitted.increment();
+            throw new CircuitOpenException("Circuit breaker " + name + " is open");
+        }
+        Runnable task = ExecutionContext.wrap(command);
+        long start = System.nanoTime();
+        // a delegate that runs the command on the caller's thread rethrows its failure, count it once
+        AtomicBoolean recorded = new AtomicBoolean();
+        try {
+            delegate.execute(() -> {
+                Throwable failure = null;
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                    throw e;
+                } finally {
+                    if (recorded.compareAndSet(false, true)) {
+                        onResult(permittedIn, System.nanoTime() - start,
+                                failure != null ? failure : CompletableFutures.failureOf(command));
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            if (recorded.compareAndSet(false, true)) {
+                onResult(permittedIn, 0, e);
+            }
+            throw e;
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public synchronized double getFailureRate() {
+        return calls == 0 ? 0 : (double) failures / calls;
+    }
+
+    public synchronized double getSlowCallRate() {
+        return calls == 0 ? 0 : (double) slowCalls / calls;
+    }
+
+    /**
+     * @return submissions failed at once because the breaker was open
+     */
+    public long getNotPermitted() {
+        return notPermitted.sum();
+    }
+
+    /**
+     * @return the state the call is let through in, or {@code null} if it is not permitted
+     */
+    private State tryAcquirePermission() {
+        while (true) {
+            State current = state.get();
+            switch (current) {
+                case CLOSED:
+                    return current;
+                case OPEN:
+                    if (System.nanoTime() - openedAt < policy.getOpenNanos()) {
+                        return null;
+                    }
+                    transition(State.OPEN, State.HALF_OPEN);
+                    break;
+                default:
+                    int permits = halfOpenPermits.get();
+                    if (permits > 0) {
+                        if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                            return current;
+                        }
+                        break;
+                    }
+                    if (System.nanoTime() - halfOpenedAt >= policy.getHalfOpenNanos()) {
+                        // the trial calls are stuck, do not wait for them any longer
+                        transition(State.HALF_OPEN, State.OPEN);
+                        break;
+                    }
+                    if (state.get() == State.HALF_OPEN) {
+                        return null;
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void onResult(State permittedIn, long nanos, Throwable ex) {
+        Throwable failure = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (failure instanceof CancellationException) {
+            if (permittedIn == State.HALF_OPEN && state.get() == State.HALF_OPEN) {
+                halfOpenPermits.incrementAndGet();
+            }
+            return;
+        }
+        byte outcome = (byte) ((failure != null ? FAILURE : SUCCESS) | (nanos >= policy.getSlowCallNanos() ? SLOW : SUCCESS));
+        State from;
+        State to = null;
+        synchronized (this) {
+            from = state.get();
+            if (from == State.OPEN || from != permittedIn) {
+                // a late result from before the last transition
+                return;
+            }
+            record(outcome);
+            int needed = from == State.CLOSED ? policy.getMinimumCalls() : policy.getHalfOpenCalls();
+            if (calls >= needed) {
+                if (policy.shouldOpen(calls, failures, slowCalls)) {
+                    to = State.OPEN;
+                } else if (from == State.HALF_OPEN) {
+                    to = State.CLOSED;
+                }
+            }
+        }
+        if (to != null) {
+            transition(from, to);
+        }
+    }
+
+    private void record(byte outcome) {
+        if (calls == outcomes.length) {
+            byte evicted = outcomes[next];
+            failures -= evicted & FAILURE;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            calls++;
+        }
+        outcomes[next] = outcome;
+        failures += outcome & FAILURE;
+        slowCalls += (outcome & SLOW) >> 1;
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void transition(State from, State to) {
+        synchronized (this) {
+            if (state.get() != from) {
+                return;
+            }
+            // set up before the new state is visible to callers that do not lock
+            if (to == State.OPEN) {
+                openedAt = System.nanoTime();
+            } else if (to == State.HALF_OPEN) {
+                halfOpenedAt = System.nanoTime();
+                halfOpenPermits.set(policy.getHalfOpenCalls());
+            }
+            next = 0;
+            calls = 0;
+            failures = 0;
+            slowCalls = 0;
+            state.set(to);
+        }
+        for (Listener listener : listeners) {
+            listener.onStateChange(from, to);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+
+/**
+ * When a {@link CircuitBreakerExecutorService} opens and how it recovers.
+ * <pre>
+ * CircuitBreakerPolicy.window(20)
+ *         .withFailureRate(0.5)
+ *         .withSlowCalls(Duration.ofSeconds(1), 0.8)
+ *         .withOpenDuration(Duration.ofSeconds(5));
+ * </pre>
+ * Instances are immutable, every {@code with} method returns a new policy.
+ */
+public final class CircuitBreakerPolicy {
+
+    private final int windowSize;
+    private final double failureRate;
+    private final long slowCallNanos;
+    private final double slowCallRate;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final long halfOpenNanos;
+
+    private CircuitBreakerPolicy(int windowSize, double failureRate, long slowCallNanos, double slowCallRate,
+                                 long openNanos, int halfOpenCalls, long halfOpenNanos) {
+        this.windowSize = windowSize;
+        this.failureRate = failureRate;
+        this.slowCallNanos = slowCallNanos;
+        this.slowCallRate = slowCallRate;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.halfOpenNanos = halfOpenNanos;
+    }
+
+    /**
+     * Judges the last {@code windowSize} calls, once there are at least half as many: opens at 50%
+     * failures, ignores slow calls, stays open for 10 s and then lets 3 trial calls through, opening
+     * again if they have not all completed within another 10 s.
+     */
+    public static CircuitBreakerPolicy window(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+        }
+        return new CircuitBreakerPolicy(windowSize, 0.5, Long.MAX_VALUE, 1, Duration.ofSeconds(10).toNanos(), 3,
+                Duration.ofSeconds(10).toNanos());
+    }
+
+    public CircuitBreakerPolicy withFailureRate(double failureRate) {
+        checkRate(failureRate);
+        return new CircuitBreakerPolicy(windowSize, failureRate, slowCallNanos, slowCallRate, openNanos, halfOpenCalls, halfOpenNanos);
+    }
+
+    /**
+     * Also opens when at least {@code slowCallRate} of the calls took {@code slowCall} or longer.
+     */
+    public CircuitBreakerPolicy withSlowCalls(Duration slowCall, double slowCallRate) {
+        checkRate(slowCallRate);
+        return new CircuitBreakerPolicy(windowSize, failureRate, slowCall.toNanos(), slowCallRate, openNanos, halfOpenCalls, halfOpenNanos);
+    }
+
+    public CircuitBreakerPolicy withOpenDuration(Duration open) {
+        return new CircuitBreakerPolicy(windowSize, failureRate, slowCallNanos, slowCallRate, open.toNanos(), halfOpenCalls, halfOpenNanos);
+    }
+
+    public CircuitBreakerPolicy withHalfOpenCalls(int halfOpenCalls) {
+        if (halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("halfOpenCalls must be positive: " + halfOpenCalls);
+        }
+        return new CircuitBreakerPolicy(windowSize, failureRate, slowCallNanos, slowCallRate, openNanos, halfOpenCalls, halfOpenNanos);
+    }
+
+    /**
+     * Opens again when the trial calls have not all completed within {@code halfOpen}, e.g. because
+     * one of them hangs.
+     */
+    public CircuitBreakerPolicy withMaxHalfOpenDuration(Duration halfOpen) {
+        return new CircuitBreakerPolicy(windowSize, failureRate, slowCallNanos, slowCallRate, openNanos, halfOpenCalls,
+                halfOpen.toNanos());
+    }
+
+    int getWindowSize() {
+        return windowSize;
+    }
+
+    int getMinimumCalls() {
+        return (windowSize + 1) / 2;
+    }
+
+    long getSlowCallNanos() {
+        return slowCallNanos;
+    }
+
+    long getOpenNanos() {
+        return openNanos;
+    }
+
+    int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    long getHalfOpenNanos() {
+        return halfOpenNanos;
+    }
+
+    boolean shouldOpen(int calls, int failures, int slowCalls) {
+        return failures >= failureRate * calls || slowCalls >= slowCallRate * calls;
+    }
+
+    private static void checkRate(double rate) {
+        if (rate <= 0 || rate > 1) {
+            throw new IllegalArgumentException("rate must be above 0 and at most 1: " + rate);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerPolicy{windowSize=" + windowSize + ", failureRate=" + failureRate
+                + ", slowCall=" + (slowCallNanos == Long.MAX_VALUE ? "off" : Duration.ofNanos(slowCallNanos))
+                + ", slowCallRate=" + slowCallRate + ", open=" + Duration.ofNanos(openNanos)
+                + ", halfOpenCalls=" + halfOpenCalls + ", maxHalfOpen=" + Duration.ofNanos(halfOpenNanos) + "}";
+    }
+}
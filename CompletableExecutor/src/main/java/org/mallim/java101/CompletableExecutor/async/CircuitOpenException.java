@@ -0,0 +1,20 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Failure of a future whose task was never started because the circuit breaker was open.
+ * <p>
+ * It is raised on the hot path of a struggling system, so it carries no stack trace.
+ */
+public class CircuitOpenException extends RejectedExecutionException {
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
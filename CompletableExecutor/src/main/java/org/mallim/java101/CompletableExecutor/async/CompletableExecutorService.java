@@ -1,8 +1,11 @@
 package org.mallim.java101.CompletableExecutor.async;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * DelegatingCompletableExecutorService {@code ExecutorService} to covariantly return {@code
@@ -29,4 +32,28 @@ public interface CompletableExecutorService extends ExecutorService {
      */
     @Override
     CompletableFuture<?> submit(Runnable task);
+
+    /**
+     * Non-blocking counterpart of {@link #invokeAll(Collection)}.
+     *
+     * @return a completable future of all results in task order; it fails with the first failure,
+     * and a failure or cancellation of it cancels and interrupts the tasks still running
+     * @throws RejectedExecutionException if a task is rejected, after cancelling the tasks submitted
+     * before it
+     */
+    default <T> CompletableFuture<List<T>> invokeAllAsync(Collection<? extends Callable<T>> tasks) {
+        return CompletableFutures.invokeAll(this, tasks);
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #invokeAny(Collection)}.
+     *
+     * @return a completable future of the first successful result, or of the last failure if all
+     * tasks fail; once it completes the remaining tasks are cancelled and interrupted
+     * @throws RejectedExecutionException if a task is rejected, after cancelling the tasks submitted
+     * before it
+     */
+    default <T> CompletableFuture<T> invokeAnyAsync(Collection<? extends Callable<T>> tasks) {
+        return CompletableFutures.invokeAny(this, tasks);
+    }
 }
@@ -1,6 +1,10 @@
 package org.mallim.java101.CompletableExecutor.async;
 
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Inspired by:
@@ -12,4 +16,149 @@ public final class CompletableExecutors {
         return new DelegatingCompletableExecutorService(delegate);
     }
 
+    /**
+     * Runs every task on its own virtual thread named {@code virtual-<n>}, falling back to a cached
+     * platform thread pool on JVMs older than 21.
+     */
+    public static CompletableExecutorService virtual() {
+        return completable(VirtualThreads.newThreadPerTaskExecutor("virtual-"));
+    }
+
+    /**
+     * Same as {@link #virtual()} but with at most {@code maxConcurrency} tasks running at once; on
+     * JVMs older than 21 that is a fixed pool of {@code maxConcurrency} platform threads.
+     */
+    public static CompletableExecutorService virtual(int maxConcurrency) {
+        return completable(VirtualThreads.newBoundedExecutor("virtual-", maxConcurrency));
+    }
+
+    /**
+     * Records queue wait, execution time and outcome of every task under {@code ExecutorMetrics.of(name)}.
+     */
+    public static CompletableExecutorService instrumented(String name, ExecutorService delegate) {
+        return new InstrumentedExecutorService(delegate, ExecutorMetrics.of(name));
+    }
+
+    /**
+     * Sheds submissions above an in-flight limit that adapts to observed latency, starting at 20.
+     */
+    public static AdaptiveLimitExecutorService adaptive(ExecutorService delegate) {
+        return adaptive(delegate, 20, 1, 1000);
+    }
+
+    public static AdaptiveLimitExecutorService adaptive(ExecutorService delegate, int initialLimit, int minLimit, int maxLimit) {
+        return new AdaptiveLimitExecutorService(delegate, initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Coalesces submitted tasks into batches of up to {@code maxBatchSize}, waiting {@code window} for
+     * a batch to fill up. The window is timed on the shared timer, so it must be at least its 10 ms tick
+     * and may run one tick longer.
+     */
+    public static BatchingExecutorService batching(ExecutorService delegate, int maxBatchSize, Duration window) {
+        return new BatchingExecutorService(delegate, maxBatchSize, window);
+    }
+
+    /**
+     * Starts a second copy of a task still running after {@code delay}; at most {@code maxHedgeRatio}
+     * of the tasks are hedged over time.
+     */
+    public static HedgingExecutorService hedged(ExecutorService delegate, Duration delay, double maxHedgeRatio) {
+        return new HedgingExecutorService(delegate, delay, 0, maxHedgeRatio);
+    }
+
+    /**
+     * Same as {@link #hedged(ExecutorService, Duration, double)} with the delay learned as the given
+     * latency percentile, starting from {@code initialDelay}.
+     */
+    public static HedgingExecutorService hedged(ExecutorService delegate, Duration initialDelay, double percentile,
+                                                double maxHedgeRatio) {
+        return new HedgingExecutorService(delegate, initialDelay, percentile, maxHedgeRatio);
+    }
+
+    /**
+     * Priority lanes in front of {@code delegate}, lane 0 first; {@code parallelism} should match the
+     * delegate's thread count.
+     */
+    public static PriorityExecutorService prioritized(ExecutorService delegate, int parallelism, int lanes,
+                                                      Duration aging) {
+        return new PriorityExecutorService(delegate, parallelism, lanes, aging);
+    }
+
+    /**
+     * Runs tasks submitted with the same key in order, one at a time, and different keys in parallel.
+     */
+    public static KeyedExecutorService keyed(ExecutorService delegate) {
+        return new KeyedExecutorService(delegate);
+    }
+
+    /**
+     * At most {@code permitsPerSecond} tasks per second with bursts of {@code burst}; tasks over the
+     * limit are delayed, however long that takes.
+     */
+    public static RateLimitedExecutorService rateLimited(ExecutorService delegate, double permitsPerSecond, int burst) {
+        return new RateLimitedExecutorService(delegate, permitsPerSecond, burst, null, HashedWheelTimer.shared());
+    }
+
+    /**
+     * Like {@link #rateLimited(ExecutorService, double, int)}, but tasks that would wait longer than
+     * {@code maxWait} fail with a {@link LimitExceededException}.
+     */
+    public static RateLimitedExecutorService rateLimited(ExecutorService delegate, double permitsPerSecond, int burst,
+                                                         Duration maxWait) {
+        return new RateLimitedExecutorService(delegate, permitsPerSecond, burst, maxWait, HashedWheelTimer.shared());
+    }
+
+    /**
+     * Runs failed tasks again according to {@code policy}, pausing on the shared timer between attempts.
+     */
+    public static RetryingExecutorService retrying(ExecutorService delegate, RetryPolicy policy) {
+        return new RetryingExecutorService(delegate, policy, null, HashedWheelTimer.shared());
+    }
+
+    /**
+     * Like {@link #retrying(ExecutorService, RetryPolicy)}, with all attempts together bounded by {@code timeout}.
+     */
+    public static RetryingExecutorService retrying(ExecutorService delegate, RetryPolicy policy, Duration timeout) {
+        return new RetryingExecutorService(delegate, policy, timeout, HashedWheelTimer.shared());
+    }
+
+    /**
+     * Fails submissions at once while the delegate's recent calls fail or are slow too often, see
+     * {@link CircuitBreakerPolicy}.
+     */
+    public static CircuitBreakerExecutorService circuitBreaker(String name, ExecutorService delegate,
+                                                               CircuitBreakerPolicy policy) {
+        return new CircuitBreakerExecutorService(name, delegate, policy);
+    }
+
+    /**
+     * Thread pool that resizes itself between {@code minThreads} and {@code maxThreads} once a second.
+     */
+    public static SelfTuningExecutorService selfTuning(ThreadFactory threadFactory, int minThreads, int maxThreads) {
+        return new SelfTuningExecutorService(threadFactory, minThreads, maxThreads, Duration.ofSeconds(1),
+                HashedWheelTimer.shared());
+    }
+
+    /**
+     * Same as {@link #selfTuning(ThreadFactory, int, int)} with tasks waiting in {@code queue}, and
+     * {@code handler} deciding what happens to those that do not fit.
+     */
+    public static SelfTuningExecutorService selfTuning(ThreadFactory threadFactory, int minThreads, int maxThreads,
+                                                       BlockingQueue<Runnable> queue, RejectedExecutionHandler handler) {
+        return new SelfTuningExecutorService(threadFactory, minThreads, maxThreads, queue, handler,
+                Duration.ofSeconds(1), HashedWheelTimer.shared());
+    }
+
+    /**
+     * Async-mode work-stealing pool with one worker per available processor.
+     */
+    public static WorkStealingCompletableExecutorService workStealing() {
+        return workStealing(Runtime.getRuntime().availableProcessors());
+    }
+
+    public static WorkStealingCompletableExecutorService workStealing(int parallelism) {
+        return new WorkStealingCompletableExecutorService(parallelism, "steal-");
+    }
+
 }
@@ -0,0 +1,102 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking bulk submission behind {@link CompletableExecutorService#invokeAllAsync} and
+ * {@link CompletableExecutorService#invokeAnyAsync}, and helpers for the decorators that watch futures.
+ */
+final class CompletableFutures {
+
+    private CompletableFutures() {
+    }
+
+    static <T> CompletableFuture<List<T>> invokeAll(CompletableExecutorService executor,
+                                                    Collection<? extends Callable<T>> tasks) {
+        List<CompletableFuture<T>> futures = submitAll(executor, tasks);
+        CompletableFuture<List<T>> result = new CompletableFuture<>();
+        if (futures.isEmpty()) {
+            result.complete(new ArrayList<>());
+            return result;
+        }
+        AtomicInteger remaining = new AtomicInteger(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((value, ex) -> {
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else if (remaining.decrementAndGet() == 0) {
+                    List<T> values = new ArrayList<>(futures.size());
+                    for (CompletableFuture<T> done : futures) {
+                        values.add(done.join());
+                    }
+                    result.complete(values);
+                }
+            });
+        }
+        // a failure or a cancelled result stops whatever is still running
+        result.whenComplete((values, ex) -> {
+            if (ex != null) {
+                cancelAll(futures);
+            }
+        });
+        return result;
+    }
+
+    static <T> CompletableFuture<T> invokeAny(CompletableExecutorService executor,
+                                              Collection<? extends Callable<T>> tasks) {
+        if (tasks.isEmpty()) {
+            throw new IllegalArgumentException("No tasks to invoke");
+        }
+        List<CompletableFuture<T>> futures = submitAll(executor, tasks);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((value, ex) -> {
+                if (ex == null) {
+                    result.complete(value);
+                } else if (failures.incrementAndGet() == futures.size()) {
+                    result.completeExceptionally(ex);
+                }
+            });
+        }
+        // the losers, or everyone if the caller gave up, stop using pool threads right away
+        result.whenComplete((value, ex) -> cancelAll(futures));
+        return result;
+    }
+
+    /**
+     * @return the failure of a command that is itself a future, such as a task handed over by another
+     * completable executor, which keeps its failure to itself
+     */
+    static Throwable failureOf(Runnable command) {
+        return command instanceof CompletableFuture
+                ? ((CompletableFuture<?>) command).handle((result, ex) -> ex).getNow(null) : null;
+    }
+
+    private static <T> List<CompletableFuture<T>> submitAll(CompletableExecutorService executor,
+                                                            Collection<? extends Callable<T>> tasks) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+        } catch (RuntimeException | Error e) {
+            // like invokeAll, a rejection part way through leaves nothing running
+            cancelAll(futures);
+            throw e;
+        }
+        return futures;
+    }
+
+    private static <T> void cancelAll(List<CompletableFuture<T>> futures) {
+        for (CompletableFuture<T> future : futures) {
+            // completable executors stop the work behind a cancelled future
+            future.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Future and task in one object: running it completes itself with the outcome of the wrapped
+ * callable or runnable, so a submission costs one allocation instead of an adapter, a lambda, the
+ * delegate's {@code FutureTask} and a separate {@code CompletableFuture}.
+ * <p>
+ * Cancelling it reaches the work: a task still in the queue is removed (or skipped when it comes
+ * up), a running one is interrupted. An interrupt is never left behind on a pool thread that has
+ * moved on to another task.
+ * <p>
+ * Decorators that hand work to another {@code CompletableExecutorService} can use it as a plain
+ * {@code Callable}; {@link #call()} computes the result without completing the task.
+ * <p>
+ * The {@link ExecutionContext} of the submitting thread is captured on creation and restored
+ * while the task runs.
+ */
+class CompletableTask<T> extends CompletableFuture<T> implements Runnable, Callable<T> {
+
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int INTERRUPTING = 2;
+    private static final int INTERRUPTED = 3;
+    private static final int FINISHED = 4;
+    private static final AtomicIntegerFieldUpdater<CompletableTask> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(CompletableTask.class, "state");
+
+    private final Callable<T> callable;
+    private final Runnable runnable;
+    private final T result;
+    private final ExecutionContext context = ExecutionContext.current();
+    private volatile int state;
+    private volatile Thread runner;
+    private volatile Executor queuedOn;
+    private volatile ExecutorMetrics metrics;
+    private long measuredSince;
+
+    CompletableTask(Callable<T> callable) {
+        this.callable = callable;
+        this.runnable = null;
+        this.result = null;
+    }
+
+    CompletableTask(Runnable runnable, T result) {
+        this.callable = null;
+        this.runnable = runnable;
+        this.result = result;
+    }
+
+    /**
+     * Records queue wait, counted from now, and execution time of this task in {@code metrics}. When
+     * several instrumented executors pass the task on, the innermost one records them.
+     */
+    void measure(ExecutorMetrics metrics) {
+        this.measuredSince = System.nanoTime();
+        this.metrics = metrics;
+    }
+
+    /**
+     * Remembers the executor whose queue holds this task, so cancelling can take it out again.
+     */
+    void queuedOn(Executor executor) {
+        this.queuedOn = executor;
+    }
+
+    @Override
+    public void run() {
+        if (isDone()) {
+            return;
+        }
+        runner = Thread.currentThread();
+        if (!STATE.compareAndSet(this, NEW, RUNNING)) {
+            runner = null;
+            return;
+        }
+        ExecutionContext context = this.context;
+        ExecutionContext.Attachment attachment = context == null ? null : ExecutionContext.attach(context);
+        try {
+            complete(call());
+        } catch (CancellationException e) {
+            super.cancel(false);
+        } catch (Throwable ex) {
+            completeExceptionally(ex);
+        } finally {
+            if (!STATE.compareAndSet(this, RUNNING, FINISHED)) {
+                // stopped while running, swallow the interrupt so it does not hit the next task
+                while (state == INTERRUPTING) {
+                    Thread.yield();
+                }
+                Thread.interrupted();
+            }
+            runner = null;
+            if (attachment != null) {
+                attachment.detach();
+            }
+        }
+    }
+
+    /**
+     * Also restores the submitter's context when called from elsewhere, e.g. by a hedge copy
+     * submitted from the timer thread.
+     */
+    @Override
+    public T call() throws Exception {
+        ExecutorMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return callInContext();
+        }
+        long startedAt = System.nanoTime();
+        metrics.started(startedAt - measuredSince);
+        try {
+            return callInContext();
+        } finally {
+            metrics.finished(System.nanoTime() - startedAt);
+        }
+    }
+
+    private T callInContext() throws Exception {
+        ExecutionContext context = this.context;
+        if (context == null || ExecutionContext.current() == context) {
+            return compute();
+        }
+        ExecutionContext.Attachment attachment = ExecutionContext.attach(context);
+        try {
+            return compute();
+        } finally {
+            attachment.detach();
+        }
+    }
+
+    private T compute() throws Exception {
+        if (callable != null) {
+            return callable.call();
+        }
+        runnable.run();
+        return result;
+    }
+
+    boolean hasStarted() {
+        return state != NEW;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            stopWork(mayInterruptIfRunning);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Fails the task with {@code cause}, e.g. a timeout, and stops the work behind it like {@link #cancel}.
+     *
+     * @return {@code true} if this call completed the task
+     */
+    boolean stop(Throwable cause) {
+        if (!completeExceptionally(cause)) {
+            return false;
+        }
+        stopWork(true);
+        return true;
+    }
+
+    private void stopWork(boolean mayInterruptIfRunning) {
+        if (STATE.compareAndSet(this, NEW, FINISHED)) {
+            Executor executor = queuedOn;
+            if (executor instanceof ThreadPoolExecutor) {
+                ((ThreadPoolExecutor) executor).remove(this);
+            }
+        } else if (mayInterruptIfRunning && STATE.compareAndSet(this, RUNNING, INTERRUPTING)) {
+            try {
+                Thread thread = runner;
+                if (thread != null) {
+                    thread.interrupt();
+                }
+            } finally {
+                state = INTERRUPTED;
+            }
+        }
+    }
+}
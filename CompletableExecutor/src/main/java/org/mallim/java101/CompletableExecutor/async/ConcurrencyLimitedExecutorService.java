@@ -0,0 +1,93 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Executor service that lets at most {@code maxConcurrency} tasks run at the same time.
+ * <p>
+ * The permit is taken on the thread that runs the task, so it is meant for thread-per-task
+ * delegates such as virtual threads, where a waiting thread costs next to nothing.
+ */
+class ConcurrencyLimitedExecutorService extends DelegatingExecutorService {
+
+    private final Semaphore permits;
+
+    ConcurrencyLimitedExecutorService(ExecutorService delegate, int maxConcurrency) {
+        super(delegate);
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return delegate.submit(limited(task));
+    }
+
+    @Override
+    public <T> Future<T> submit(Runnable task, T result) {
+        return delegate.submit(limited(Executors.callable(task, result)));
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return delegate.submit(limited(Executors.callable(task)));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        return delegate.invokeAll(limited(tasks));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.invokeAll(limited(tasks), timeout, unit);
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+        return delegate.invokeAny(limited(tasks));
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return delegate.invokeAny(limited(tasks), timeout, unit);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Runnable task = ExecutionContext.wrap(command);
+        delegate.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    private <T> Callable<T> limited(Callable<T> task) {
+        Callable<T> contextual = ExecutionContext.wrap(task);
+        return () -> {
+            permits.acquire();
+            try {
+                return contextual.call();
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    private <T> List<Callable<T>> limited(Collection<? extends Callable<T>> tasks) {
+        List<Callable<T>> limited = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            limited.add(limited(task));
+        }
+        return limited;
+    }
+}
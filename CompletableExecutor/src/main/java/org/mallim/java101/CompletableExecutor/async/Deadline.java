@@ -0,0 +1,87 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Absolute point in time, on the {@code System.nanoTime()} clock, by which an answer is needed.
+ * <p>
+ * While a task submitted with a deadline runs, including the dependent stages its completion
+ * triggers, the deadline is {@link #current()}; tasks submitted from there to a
+ * {@code DeadlineExecutorService} inherit it, so every stage of a chain only gets the time that is
+ * left.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long nanoTime;
+
+    private Deadline(long nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * @return the deadline of the task running on this thread, or {@code null}
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    public long remainingNanos() {
+        return nanoTime - System.nanoTime();
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, remainingNanos()));
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    public Deadline earliest(Deadline other) {
+        return other == null || nanoTime - other.nanoTime <= 0 ? this : other;
+    }
+
+    /**
+     * Runs {@code action} with this deadline as {@link #current()}, e.g. to build a chain of stages
+     * on the calling thread.
+     */
+    public <T> T call(Callable<T> action) throws Exception {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    void run(Runnable action) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    private static void restore(Deadline previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{remaining=" + remaining() + "}";
+    }
+}
@@ -0,0 +1,13 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Failure of a task whose deadline passed, either while it waited in the queue or while it ran.
+ */
+public class DeadlineExceededException extends TimeoutException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
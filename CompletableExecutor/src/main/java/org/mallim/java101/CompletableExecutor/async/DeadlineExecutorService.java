@@ -0,0 +1,110 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Completable executor that bounds every task by an absolute {@link Deadline} instead of a fixed
+ * timeout.
+ * <p>
+ * A task gets the earliest of the deadline passed to {@link #submit(Callable, Deadline)}, the
+ * deadline of the task it was submitted from and, if configured, submit time plus the default
+ * timeout. A task whose deadline passed while it sat in the queue is dropped before it starts; one
+ * that is still running at the deadline is interrupted. Both fail with a
+ * {@link DeadlineExceededException}, completed on the common pool rather than the timer thread.
+ */
+public class DeadlineExecutorService extends DelegatingCompletableExecutorService {
+
+    private final Duration defaultTimeout;
+    private final HashedWheelTimer timer;
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param defaultTimeout bound for tasks without any deadline, {@code null} to leave them unbounded
+     */
+    DeadlineExecutorService(ExecutorService delegate, Duration defaultTimeout) {
+        super(delegate);
+        this.defaultTimeout = defaultTimeout;
+        this.timer = HashedWheelTimer.shared();
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task, Deadline deadline) {
+        return schedule(new DeadlineTask<>(task, deadline.earliest(Deadline.current())));
+    }
+
+    @Override
+    <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+        Deadline deadline = Deadline.current();
+        if (defaultTimeout != null) {
+            deadline = Deadline.after(defaultTimeout).earliest(deadline);
+        }
+        if (deadline == null) {
+            return super.dispatch(task);
+        }
+        return schedule(new DeadlineTask<>(task, deadline));
+    }
+
+    /**
+     * Async stages run through this executor, e.g. {@code thenComposeAsync(fn, executor)}, see the
+     * deadline of the stage that triggered them.
+     */
+    @Override
+    public void execute(Runnable command) {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            super.execute(command);
+        } else {
+            super.execute(() -> deadline.run(command));
+        }
+    }
+
+    /**
+     * @return tasks dropped because their deadline passed before they started
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private <T> CompletableFuture<T> schedule(DeadlineTask<T> task) {
+        if (task.deadline.isExpired()) {
+            task.expire();
+            return task;
+        }
+        super.dispatch(task);
+        HashedWheelTimer.Timeout scheduled = timer.schedule(task::expire, task.deadline.remainingNanos(),
+                TimeUnit.NANOSECONDS, ForkJoinPool.commonPool());
+        task.whenComplete((result, ex) -> scheduled.cancel());
+        return task;
+    }
+
+    private final class DeadlineTask<T> extends CompletableTask<T> {
+        private final Deadline deadline;
+
+        DeadlineTask(Callable<T> callable, Deadline deadline) {
+            super(callable);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            if (deadline.isExpired()) {
+                expire();
+                return;
+            }
+            // dependents completed from here submit with the same deadline
+            deadline.run(super::run);
+        }
+
+        void expire() {
+            boolean queued = !hasStarted();
+            if (stop(new DeadlineExceededException("Deadline exceeded")) && queued) {
+                dropped.increment();
+            }
+        }
+    }
+}
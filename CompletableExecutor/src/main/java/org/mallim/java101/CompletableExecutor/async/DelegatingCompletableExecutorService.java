@@ -1,12 +1,9 @@
 package org.mallim.java101.CompletableExecutor.async;
 
 import java.util.concurrent.Callable;
-import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 
-import static java.util.concurrent.Executors.callable;
-
 public class DelegatingCompletableExecutorService extends DelegatingExecutorService implements CompletableExecutorService {
 
     DelegatingCompletableExecutorService(ExecutorService threads) {
@@ -15,26 +12,61 @@ public class DelegatingCompletableExecutorService extends DelegatingExecutorServ
 
     @Override
     public <T> CompletableFuture<T> submit(Callable<T> task) {
-        final CompletableFuture<T> cf = new CompletableFuture<>();
-        delegate.submit(() -> {
-            try {
-                cf.complete(task.call());
-            } catch (CancellationException e) {
-                cf.cancel(true);
-            } catch (Exception e) {
-                cf.completeExceptionally(e);
-            }
-        });
-        return cf;
+        return dispatch(new CompletableTask<>(task));
     }
 
     @Override
     public <T> CompletableFuture<T> submit(Runnable task, T result) {
-        return submit(callable(task, result));
+        return dispatch(new CompletableTask<>(task, result));
     }
 
     @Override
     public CompletableFuture<?> submit(Runnable task) {
-        return submit(callable(task));
+        return dispatch(new CompletableTask<Void>(task, null));
+    }
+
+    /**
+     * Every submit ends up here; decorators override this instead of the three submit methods.
+     *
+     * @return the future the caller gets, usually {@code task} itself
+     */
+    <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+        task.queuedOn(delegate);
+        delegate.execute(task);
+        return task;
+    }
+
+    /**
+     * Hands {@code task} itself on to the delegate, for decorators that do their part around it: through
+     * the delegate's own {@code dispatch} when it is a decorator of this package, as a callable whose
+     * outcome is relayed into {@code task} when it is another completable executor, otherwise straight
+     * to the delegate's queue.
+     *
+     * @return {@code task}
+     */
+    final <T> CompletableFuture<T> forward(CompletableTask<T> task) {
+        if (delegate instanceof DelegatingCompletableExecutorService) {
+            CompletableFuture<T> forwarded = ((DelegatingCompletableExecutorService) delegate).dispatch(task);
+            if (forwarded != task) {
+                relay(forwarded, task);
+            }
+        } else if (delegate instanceof CompletableExecutorService) {
+            relay(((CompletableExecutorService) delegate).submit((Callable<T>) task), task);
+        } else {
+            task.queuedOn(delegate);
+            delegate.execute(task);
+        }
+        return task;
+    }
+
+    private static <T> void relay(CompletableFuture<T> forwarded, CompletableTask<T> task) {
+        forwarded.whenComplete((result, ex) -> {
+            if (ex == null) {
+                task.complete(result);
+            } else {
+                task.completeExceptionally(ex);
+            }
+        });
+        task.whenComplete((result, ex) -> forwarded.cancel(true));
     }
 }
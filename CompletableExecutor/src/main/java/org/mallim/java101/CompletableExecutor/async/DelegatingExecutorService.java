@@ -5,7 +5,8 @@ import java.util.List;
 import java.util.concurrent.*;
 
 /**
- * Executor service that delegates everything to another one
+ * Executor service that delegates everything to another one, carrying the {@link ExecutionContext}
+ * of the submitting thread over to the task
  */
 public class DelegatingExecutorService implements ExecutorService {
 
@@ -17,17 +18,17 @@ public class DelegatingExecutorService implements ExecutorService {
 
     @Override
     public <T> Future<T> submit(Callable<T> task) {
-        return delegate.submit(task);
+        return delegate.submit(ExecutionContext.wrap(task));
     }
 
     @Override
     public <T> Future<T> submit(Runnable task, T result) {
-        return delegate.submit(task, result);
+        return delegate.submit(ExecutionContext.wrap(task), result);
     }
 
     @Override
     public Future<?> submit(Runnable task) {
-        return delegate.submit(task);
+        return delegate.submit(ExecutionContext.wrap(task));
     }
 
     @Override
@@ -77,6 +78,6 @@ public class DelegatingExecutorService implements ExecutorService {
 
     @Override
     public void execute(Runnable command) {
-        delegate.execute(command);
+        delegate.execute(ExecutionContext.wrap(command));
     }
 }
@@ -0,0 +1,184 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.slf4j.MDC;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * Immutable set of log context entries, e.g. a request id, that follows work onto the threads of
+ * the completable executors.
+ * <p>
+ * A submit captures the current context by reference, a single thread-local read, and the task
+ * restores it, into the MDC as well, while it runs. Adding an entry creates a new context instead
+ * of copying the MDC on every submit; when no context is open nothing is captured or restored.
+ * <pre>
+ * try (ExecutionContext.Scope scope = ExecutionContext.open("requestId", id)) {
+ *     asyncService.asyncGreeting();
+ * }
+ * </pre>
+ */
+public final class ExecutionContext {
+
+    private static final ThreadLocal<ExecutionContext> CURRENT = new ThreadLocal<>();
+
+    private final String[] keys;
+    private final String[] values;
+
+    private ExecutionContext(String[] keys, String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @return the context of this thread, or {@code null}
+     */
+    public static ExecutionContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes the current context plus {@code key} the context of this thread until the scope is closed.
+     */
+    public static Scope open(String key, String value) {
+        ExecutionContext previous = CURRENT.get();
+        ExecutionContext context = previous == null
+                ? new ExecutionContext(new String[]{key}, new String[]{value})
+                : previous.with(key, value);
+        return attach(context)::detach;
+    }
+
+    public String get(String key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    public ExecutionContext with(String key, String value) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                String[] newValues = values.clone();
+                newValues[i] = value;
+                return new ExecutionContext(keys, newValues);
+            }
+        }
+        String[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+        String[] newValues = Arrays.copyOf(values, values.length + 1);
+        newKeys[keys.length] = key;
+        newValues[values.length] = value;
+        return new ExecutionContext(newKeys, newValues);
+    }
+
+    /**
+     * @return {@code task} itself when there is no context to carry, so the common case allocates nothing
+     */
+    static Runnable wrap(Runnable task) {
+        ExecutionContext context = CURRENT.get();
+        if (context == null || task instanceof CompletableTask || task instanceof ContextRunnable) {
+            return task;
+        }
+        return new ContextRunnable(context, task);
+    }
+
+    static <T> Callable<T> wrap(Callable<T> task) {
+        ExecutionContext context = CURRENT.get();
+        if (context == null || task instanceof CompletableTask) {
+            return task;
+        }
+        return () -> {
+            Attachment attachment = attach(context);
+            try {
+                return task.call();
+            } finally {
+                attachment.detach();
+            }
+        };
+    }
+
+    /**
+     * Makes {@code context} current and puts its entries into the MDC.
+     *
+     * @return what to detach on the same thread once done
+     */
+    static Attachment attach(ExecutionContext context) {
+        ExecutionContext previous = CURRENT.get();
+        String[] priorValues = new String[context.keys.length];
+        CURRENT.set(context);
+        for (int i = 0; i < context.keys.length; i++) {
+            priorValues[i] = MDC.get(context.keys[i]);
+            MDC.put(context.keys[i], context.values[i]);
+        }
+        return new Attachment(context, previous, priorValues);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ExecutionContext{");
+        for (int i = 0; i < keys.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(keys[i]).append('=').append(values[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Restores the previous context when closed; close it on the thread that opened it.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * The context that was current and the MDC values an {@link #attach} replaced, so that entries the
+     * thread had put into the MDC itself survive the task.
+     */
+    static final class Attachment {
+        private final ExecutionContext context;
+        private final ExecutionContext previous;
+        private final String[] priorValues;
+
+        private Attachment(ExecutionContext context, ExecutionContext previous, String[] priorValues) {
+            this.context = context;
+            this.previous = previous;
+            this.priorValues = priorValues;
+        }
+
+        void detach() {
+            for (int i = 0; i < context.keys.length; i++) {
+                if (priorValues[i] == null) {
+                    MDC.remove(context.keys[i]);
+                } else {
+                    MDC.put(context.keys[i], priorValues[i]);
+                }
+            }
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    private static final class ContextRunnable implements Runnable {
+        private final ExecutionContext context;
+        private final Runnable task;
+
+        ContextRunnable(ExecutionContext context, Runnable task) {
+            this.context = context;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            Attachment attachment = attach(context);
+            try {
+                task.run();
+            } finally {
+                attachment.detach();
+            }
+        }
+    }
+}
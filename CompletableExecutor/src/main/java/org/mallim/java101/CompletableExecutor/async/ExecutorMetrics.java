@@ -0,0 +1,153 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queue-wait, execution time and outcome counters of one named executor.
+ * <p>
+ * Instances are registered by name, so {@code ExecutorMetrics.of("timed").snapshot()} reads the
+ * numbers of the executor built by {@code CompletableExecutors.instrumented("timed", ...)}.
+ */
+public final class ExecutorMetrics {
+
+    private static final ConcurrentMap<String, ExecutorMetrics> REGISTRY = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram execution = new LatencyHistogram();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    private ExecutorMetrics(String name) {
+        this.name = name;
+    }
+
+    public static ExecutorMetrics of(String name) {
+        return REGISTRY.computeIfAbsent(name, ExecutorMetrics::new);
+    }
+
+    public static Map<String, ExecutorMetrics> all() {
+        return Collections.unmodifiableMap(REGISTRY);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void submitted() {
+        submitted.increment();
+        inFlight.increment();
+    }
+
+    void started(long waitNanos) {
+        queueWait.record(waitNanos);
+    }
+
+    void finished(long executionNanos) {
+        execution.record(executionNanos);
+    }
+
+    void completed(Throwable ex) {
+        inFlight.decrement();
+        if (ex == null) {
+            succeeded.increment();
+            return;
+        }
+        Throwable cause = ex instanceof CompletionException || ex instanceof ExecutionException ? ex.getCause() : ex;
+        if (cause instanceof TimeoutException) {
+            timedOut.increment();
+        } else if (cause instanceof CancellationException) {
+            cancelled.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(name, queueWait.snapshot(), execution.snapshot(), submitted.sum(), inFlight.sum(),
+                succeeded.sum(), failed.sum(), timedOut.sum(), cancelled.sum());
+    }
+
+    /**
+     * Point-in-time copy of the metrics; latencies are in nanoseconds.
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final LatencyHistogram.Snapshot queueWait;
+        private final LatencyHistogram.Snapshot execution;
+        private final long submitted;
+        private final long inFlight;
+        private final long succeeded;
+        private final long failed;
+        private final long timedOut;
+        private final long cancelled;
+
+        Snapshot(String name, LatencyHistogram.Snapshot queueWait, LatencyHistogram.Snapshot execution,
+                 long submitted, long inFlight, long succeeded, long failed, long timedOut, long cancelled) {
+            this.name = name;
+            this.queueWait = queueWait;
+            this.execution = execution;
+            this.submitted = submitted;
+            this.inFlight = inFlight;
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.timedOut = timedOut;
+            this.cancelled = cancelled;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LatencyHistogram.Snapshot getQueueWait() {
+            return queueWait;
+        }
+
+        public LatencyHistogram.Snapshot getExecution() {
+            return execution;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getInFlight() {
+            return inFlight;
+        }
+
+        public long getSucceeded() {
+            return succeeded;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getTimedOut() {
+            return timedOut;
+        }
+
+        public long getCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": submitted=" + submitted + ", inFlight=" + inFlight + ", succeeded=" + succeeded
+                    + ", failed=" + failed + ", timedOut=" + timedOut + ", cancelled=" + cancelled
+                    + ", queueWait[" + queueWait + "], execution[" + execution + "]";
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+/**
+ * Approximate access counts of many keys in little memory, for TinyLFU admission.
+ * <p>
+ * A count-min sketch of 4-bit counters, sixteen to a {@code long}; every key is counted in four
+ * of them and its frequency is the smallest. After ten times the cache size increments all
+ * counters are halved, so the counts follow recent popularity. Updates from concurrent threads
+ * may be lost, which only makes the estimate a little less exact.
+ * <p>
+ * Inspired by:
+ * https://github.com/ben-manes/caffeine/blob/master/caffeine/src/main/java/com/github/benmanes/caffeine/cache/FrequencySketch.java
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+    // small caches still see many distinct keys, e.g. during a scan
+    private static final int MIN_SIZE = 256;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long expectedSize) {
+        int size = (int) Math.min(1 << 30, Math.max(MIN_SIZE, Long.highestOneBit(Math.max(1, expectedSize) - 1) << 1));
+        this.table = new long[size];
+        this.mask = size - 1;
+        this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * size);
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < 4; i++) {
+            int index = index(hash, i);
+            int offset = counterOffset(hash, i);
+            frequency = Math.min(frequency, (int) ((table[index] >>> offset) & 0xf));
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = index(hash, i);
+            int offset = counterOffset(hash, i);
+            long value = table[index];
+            if (((value >>> offset) & 0xf) < MAX_COUNT) {
+                table[index] = value + (1L << offset);
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & mask;
+    }
+
+    /**
+     * @return bit offset of one of the sixteen 4-bit counters in the long, a different one per hash function
+     */
+    private static int counterOffset(int hash, int i) {
+        int counter = ((hash >>> (i << 3)) & 3) << 2 | i;
+        return counter << 2;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,222 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Completable executor that starts a second copy of a task which has not finished after the hedge
+ * delay, completes the caller's future with whichever copy succeeds first and cancels the other. The
+ * future fails only once both copies failed; a hedge the delegate sheds or rejects before it runs
+ * does not count, and its hedge is given back.
+ * <p>
+ * The delay is either fixed or learned as a percentile of recent latencies: it is recomputed every
+ * {@value #RECOMPUTE_EVERY} tasks from the latencies of the last {@value #MIN_SAMPLES} to
+ * {@value #WINDOW} tasks, so it follows the delegate when it gets faster or slower. Every task earns
+ * {@code maxHedgeRatio} of a hedge and sending one costs a whole hedge, with at most
+ * {@value #MAX_BURST} saved up, so an incident that slows every task down can add at most that
+ * fraction of extra load. Only use it for idempotent tasks.
+ * <p>
+ * Inspired by:
+ * https://research.google/pubs/pub40801/ (The Tail at Scale)
+ */
+public class HedgingExecutorService extends DelegatingCompletableExecutorService {
+
+    private static final long ONE_HEDGE = 1_000;
+    private static final long MAX_BURST = 10;
+    private static final int MIN_SAMPLES = 100;
+    private static final int RECOMPUTE_EVERY = 100;
+    private static final int WINDOW = 1_000;
+
+    private final HashedWheelTimer timer;
+    private final double percentile;
+    private final long creditPerTask;
+    private final LongBinaryOperator earn = (credits, earned) -> Math.min(MAX_BURST * ONE_HEDGE, credits + earned);
+    private final AtomicLong credits = new AtomicLong(MAX_BURST * ONE_HEDGE);
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong samples = new AtomicLong();
+    private final LongAdder tasks = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private volatile long delayNanos;
+
+    /**
+     * @param delay      fixed hedge delay, or the delay used until enough latencies are known when
+     *                   {@code percentile} is positive
+     * @param percentile latency percentile to learn the delay from, e.g. 95; 0 keeps the delay fixed
+     */
+    HedgingExecutorService(ExecutorService delegate, Duration delay, double percentile, double maxHedgeRatio) {
+        super(delegate);
+        if (maxHedgeRatio < 0 || maxHedgeRatio > 1) {
+            throw new IllegalArgumentException("maxHedgeRatio must be between 0 and 1: " + maxHedgeRatio);
+        }
+        this.timer = HashedWheelTimer.shared();
+        this.delayNanos = delay.toNanos();
+        this.percentile = percentile;
+        this.creditPerTask = Math.round(maxHedgeRatio * ONE_HEDGE);
+    }
+
+    @Override
+    <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+        tasks.increment();
+        credits.accumulateAndGet(creditPerTask, earn);
+        long start = System.nanoTime();
+        Copies<T> copies = new Copies<>(task);
+        CompletableFuture<T> primary = copies.launch(false);
+        HashedWheelTimer.Timeout hedgeTimer = timer.schedule(copies::hedge, delayNanos, TimeUnit.NANOSECONDS);
+        primary.whenComplete((result, ex) -> {
+            hedgeTimer.cancel();
+            if (ex == null) {
+                recordLatency(System.nanoTime() - start);
+            }
+        });
+        return task;
+    }
+
+    public Duration getHedgeDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    public long getTasks() {
+        return tasks.sum();
+    }
+
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    private boolean tryTakeCredit() {
+        while (true) {
+            long current = credits.get();
+            if (current < ONE_HEDGE) {
+                return false;
+            }
+            if (credits.compareAndSet(current, current - ONE_HEDGE)) {
+                return true;
+            }
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        if (percentile <= 0) {
+            return;
+        }
+        latencies.record(nanos);
+        long count = samples.incrementAndGet();
+        if (count % RECOMPUTE_EVERY != 0) {
+            return;
+        }
+        // start a new window every WINDOW samples, so old latencies stop counting
+        LatencyHistogram.Snapshot window = count % WINDOW == 0 ? latencies.snapshotAndReset() : latencies.snapshot();
+        if (window.getCount() >= MIN_SAMPLES) {
+            delayNanos = Math.max(1, window.percentile(percentile));
+        }
+    }
+
+    /**
+     * The copies of one task. The task takes the first success and fails once every copy that ran
+     * has failed.
+     */
+    private final class Copies<T> {
+        private final CompletableTask<T> task;
+        // copies that may still complete the task, 0 once they all failed
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private volatile Throwable firstFailure;
+
+        Copies(CompletableTask<T> task) {
+            this.task = task;
+        }
+
+        void hedge() {
+            if (task.isDone() || !tryTakeCredit()) {
+                return;
+            }
+            if (!tryAddPending()) {
+                credits.accumulateAndGet(ONE_HEDGE, earn);
+                return;
+            }
+            hedges.increment();
+            launch(true);
+        }
+
+        /**
+         * @throws RejectedExecutionException if the delegate rejects the primary
+         */
+        CompletableFuture<T> launch(boolean isHedge) {
+            // the caller's task only serves as the callable, each copy is its own future
+            Copy<T> copy = new Copy<>(task);
+            copy.whenComplete((result, ex) -> {
+                if (ex == null) {
+                    if (task.complete(result) && isHedge) {
+                        hedgeWins.increment();
+                    }
+                } else {
+                    failed(copy, isHedge, ex);
+                }
+            });
+            // once the caller's future is done, by a copy or by cancelling it, the other copy stops
+            task.whenComplete((result, ex) -> copy.cancel(true));
+            try {
+                forward(copy);
+            } catch (RuntimeException e) {
+                if (!isHedge) {
+                    throw e;
+                }
+                // on the timer thread nobody would see it, so the hedge fails instead
+                copy.completeExceptionally(e);
+            }
+            return copy;
+        }
+
+        private void failed(Copy<T> copy, boolean isHedge, Throwable ex) {
+            if (isHedge && !copy.started && !task.isDone()) {
+                // shed or rejected before it ran, so it was no hedge at all and the credit goes back
+                hedges.decrement();
+                credits.accumulateAndGet(ONE_HEDGE, earn);
+            } else if (firstFailure == null) {
+                firstFailure = ex;
+            }
+            if (pending.decrementAndGet() == 0) {
+                Throwable failure = firstFailure;
+                task.completeExceptionally(failure != null ? failure : ex);
+            }
+        }
+
+        private boolean tryAddPending() {
+            while (true) {
+                int current = pending.get();
+                if (current == 0) {
+                    return false;
+                }
+                if (pending.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private static final class Copy<T> extends CompletableTask<T> {
+        volatile boolean started;
+
+        Copy(Callable<T> task) {
+            super(task);
+        }
+
+        @Override
+        public T call() throws Exception {
+            started = true;
+            return super.call();
+        }
+    }
+}
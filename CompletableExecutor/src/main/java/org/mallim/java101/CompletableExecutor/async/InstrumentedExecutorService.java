@@ -0,0 +1,67 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
+
+/**
+ * Completable executor that records queue wait, execution time and outcome of every task in
+ * {@link ExecutorMetrics}.
+ * <p>
+ * When the delegate is itself a {@code CompletableExecutorService}, e.g. a timed one, the outcome is
+ * taken from the future it returns, so timeouts and cancellations are counted as such.
+ */
+class InstrumentedExecutorService extends DelegatingCompletableExecutorService {
+
+    private final ExecutorMetrics metrics;
+    private final BiConsumer<Object, Throwable> outcome;
+
+    InstrumentedExecutorService(ExecutorService delegate, ExecutorMetrics metrics) {
+        super(delegate);
+        this.metrics = metrics;
+        this.outcome = (result, ex) -> metrics.completed(ex);
+    }
+
+    @Override
+    <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+        metrics.submitted();
+        task.measure(metrics);
+        forward(task);
+        task.whenComplete(outcome);
+        return task;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        metrics.submitted();
+        delegate.execute(new InstrumentedRunnable(ExecutionContext.wrap(command), metrics, System.nanoTime()));
+    }
+
+    private static final class InstrumentedRunnable implements Runnable {
+        private final Runnable task;
+        private final ExecutorMetrics metrics;
+        private final long enqueuedAt;
+
+        InstrumentedRunnable(Runnable task, ExecutorMetrics metrics, long enqueuedAt) {
+            this.task = task;
+            this.metrics = metrics;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            metrics.started(startedAt - enqueuedAt);
+            Throwable failure = null;
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                failure = e;
+                throw e;
+            } finally {
+                metrics.finished(System.nanoTime() - startedAt);
+                metrics.completed(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Completable executor that runs tasks with the same key one at a time, in submission order, while
+ * tasks with different keys run in parallel on the delegate.
+ * <p>
+ * Only keys with a running task are in the map; their waiting tasks queue behind it and the last
+ * one to finish removes the key again. Every map update is a {@code compute} on that one key, so
+ * submitters only contend with others using the same key (or hash bin), never on a global lock.
+ * <p>
+ * Tasks submitted without a key go straight to the delegate.
+ */
+public class KeyedExecutorService extends DelegatingCompletableExecutorService {
+
+    private final ConcurrentMap<Object, KeyQueue> keys = new ConcurrentHashMap<>();
+
+    KeyedExecutorService(ExecutorService delegate) {
+        super(delegate);
+    }
+
+    public <T> CompletableFuture<T> submit(Object key, Callable<T> task) {
+        KeyedTask<T> keyed = new KeyedTask<>(key, task);
+        keys.compute(key, (k, queue) -> {
+            if (queue == null) {
+                keyed.first = true;
+                return new KeyQueue(keyed);
+            }
+            queue.waiting.add(keyed);
+            return queue;
+        });
+        if (keyed.first) {
+            start(keyed);
+        }
+        return keyed;
+    }
+
+    public CompletableFuture<?> submit(Object key, Runnable task) {
+        return submit(key, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return number of keys with a running or queued task
+     */
+    public int getActiveKeys() {
+        return keys.size();
+    }
+
+    /**
+     * Not queued on the delegate: a cancelled task must still run, as a no-op, to hand over to the
+     * next one with its key.
+     */
+    private void start(KeyedTask<?> task) {
+        while (task != null) {
+            try {
+                delegate.execute(task);
+                return;
+            } catch (RejectedExecutionException e) {
+                task.completeExceptionally(e);
+                task = next(task.key);
+            }
+        }
+    }
+
+    private KeyedTask<?> next(Object key) {
+        KeyQueue queue = keys.compute(key, (k, current) -> {
+            KeyedTask<?> next = current.waiting.poll();
+            if (next == null) {
+                return null;
+            }
+            current.running = next;
+            return current;
+        });
+        return queue == null ? null : queue.running;
+    }
+
+    /**
+     * Only read or written inside {@code compute} for its key.
+     */
+    private static final class KeyQueue {
+        final Queue<KeyedTask<?>> waiting = new ArrayDeque<>(2);
+        KeyedTask<?> running;
+
+        KeyQueue(KeyedTask<?> running) {
+            this.running = running;
+        }
+    }
+
+    private final class KeyedTask<T> extends CompletableTask<T> {
+        final Object key;
+        // only read by the submitting thread
+        boolean first;
+
+        KeyedTask(Object key, Callable<T> callable) {
+            super(callable);
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                start(next(key));
+            }
+        }
+    }
+}
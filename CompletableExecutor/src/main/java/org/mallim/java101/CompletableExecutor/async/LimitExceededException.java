@@ -0,0 +1,14 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Failure of a future whose task was shed because the executor was at its concurrency or rate limit;
+ * {@code execute} throws it instead.
+ */
+public class LimitExceededException extends RejectedExecutionException {
+
+    public LimitExceededException(String message) {
+        super(message);
+    }
+}
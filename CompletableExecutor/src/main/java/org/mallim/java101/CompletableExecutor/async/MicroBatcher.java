@@ -0,0 +1,148 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Collects submitted items and hands them to the executor in batches of up to {@code maxBatchSize},
+ * or whatever has arrived once {@code window} has passed since the first item of a batch.
+ * <p>
+ * The window runs on the timer, so a partial batch goes out between {@code window} and {@code window}
+ * plus one tick of the timer after its first item; windows shorter than a tick are rejected.
+ * <p>
+ * A batch that fills up goes out at once and cancels its window. If the executor rejects a batch,
+ * its slots fail with the rejection.
+ * <p>
+ * Each caller gets the future of its own slot; slots cancelled before their batch runs are skipped.
+ */
+public class MicroBatcher<I, O> {
+
+    private final Executor executor;
+    private final HashedWheelTimer timer;
+    private final int maxBatchSize;
+    private final Duration window;
+    private final Consumer<List<Slot<I, O>>> processor;
+
+    // the batch being filled and the timeout of its window, guarded by this
+    private List<Slot<I, O>> filling;
+    private HashedWheelTimer.Timeout windowTimeout;
+    private long batches;
+
+    MicroBatcher(Executor executor, HashedWheelTimer timer, int maxBatchSize, Duration window,
+                 Consumer<List<Slot<I, O>>> processor) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        if (window.compareTo(timer.getTick()) < 0) {
+            throw new IllegalArgumentException("window " + window + " is shorter than the timer tick " + timer.getTick());
+        }
+        this.executor = executor;
+        this.timer = timer;
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+        this.processor = processor;
+        this.filling = new ArrayList<>();
+    }
+
+    /**
+     * Runs every batch through {@code batchFunction}, which must return one result per item, in order.
+     */
+    static <I, O> MicroBatcher<I, O> of(Executor executor, HashedWheelTimer timer, int maxBatchSize, Duration window,
+                                        Function<List<I>, List<O>> batchFunction) {
+        return new MicroBatcher<>(executor, timer, maxBatchSize, window, slots -> {
+            List<I> items = new ArrayList<>(slots.size());
+            for (Slot<I, O> slot : slots) {
+                items.add(slot.item);
+            }
+            try {
+                List<O> results = batchFunction.apply(items);
+                if (results.size() != items.size()) {
+                    throw new IllegalStateException("Batch function returned " + results.size()
+                            + " results for " + items.size() + " items");
+                }
+                for (int i = 0; i < slots.size(); i++) {
+                    slots.get(i).complete(results.get(i));
+                }
+            } catch (Throwable ex) {
+                for (Slot<I, O> slot : slots) {
+                    slot.completeExceptionally(ex);
+                }
+            }
+        });
+    }
+
+    public CompletableFuture<O> submit(I item) {
+        Slot<I, O> slot = new Slot<>(item);
+        List<Slot<I, O>> full = null;
+        synchronized (this) {
+            filling.add(slot);
+            if (filling.size() >= maxBatchSize) {
+                full = takeBatch();
+            } else if (filling.size() == 1) {
+                long batch = batches;
+                windowTimeout = timer.schedule(() -> flushWindow(batch), window);
+            }
+        }
+        if (full != null) {
+            run(full);
+        }
+        return slot;
+    }
+
+    private void flushWindow(long batch) {
+        List<Slot<I, O>> partial;
+        synchronized (this) {
+            // the batch filled up and went out while this timeout was firing
+            if (batch != batches) {
+                return;
+            }
+            partial = takeBatch();
+        }
+        run(partial);
+    }
+
+    // guarded by this
+    private List<Slot<I, O>> takeBatch() {
+        List<Slot<I, O>> batch = filling;
+        filling = new ArrayList<>();
+        batches++;
+        if (windowTimeout != null) {
+            windowTimeout.cancel();
+            windowTimeout = null;
+        }
+        return batch;
+    }
+
+    private void run(List<Slot<I, O>> slots) {
+        List<Slot<I, O>> batch = new ArrayList<>(slots.size());
+        for (Slot<I, O> slot : slots) {
+            if (!slot.isDone()) {
+                batch.add(slot);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> processor.accept(batch));
+        } catch (RuntimeException e) {
+            // on the timer thread nobody would see the rejection, so every caller gets it instead
+            for (Slot<I, O> slot : batch) {
+                slot.completeExceptionally(e);
+            }
+        }
+    }
+
+    static final class Slot<I, O> extends CompletableFuture<O> {
+        final I item;
+
+        Slot(I item) {
+            this.item = item;
+        }
+    }
+}
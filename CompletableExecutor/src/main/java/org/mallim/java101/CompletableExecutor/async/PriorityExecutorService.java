@@ -0,0 +1,197 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Completable executor with priority lanes, lane 0 being the most urgent.
+ * <p>
+ * Each lane is a lock-free queue, so submitters to different lanes, or to the same one, never wait
+ * on a shared lock. Up to {@code parallelism} drainers run on the delegate and always take the
+ * most urgent task next; the delegate's own queue stays close to empty. To keep background work
+ * from starving, a task that has waited longer than {@code aging} times its lane number is taken
+ * ahead of the lanes above it.
+ * <p>
+ * {@link #lane(int)} gives an executor that submits to one lane, e.g. to register per
+ * {@code @Async} qualifier.
+ */
+public class PriorityExecutorService extends DelegatingCompletableExecutorService {
+
+    private static final int TASKS_PER_DRAIN = 64;
+
+    private final Queue<Queued>[] lanes;
+    private final long agingNanos;
+    private final int parallelism;
+    private final AtomicInteger drainers = new AtomicInteger();
+    private final Runnable drain = this::drain;
+
+    @SuppressWarnings("unchecked")
+    PriorityExecutorService(ExecutorService delegate, int parallelism, int laneCount, Duration aging) {
+        super(delegate);
+        if (laneCount <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism and laneCount must be positive: " + parallelism + ", " + laneCount);
+        }
+        this.lanes = new Queue[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.agingNanos = aging.toNanos();
+        this.parallelism = parallelism;
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task, int lane) {
+        CompletableTask<T> completable = new CompletableTask<>(task);
+        enqueue(completable, lane);
+        return completable;
+    }
+
+    /**
+     * Plain submissions go to lane 0; use {@link #submit(Callable, int)} or {@link #lane(int)} for the
+     * others.
+     */
+    @Override
+    <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+        enqueue(task, 0);
+        return task;
+    }
+
+    /**
+     * Queues {@code command} on lane 0 like a submission, so it obeys the lanes and the parallelism.
+     */
+    @Override
+    public void execute(Runnable command) {
+        enqueue(new CompletableTask<Void>(ExecutionContext.wrap(command), null), 0);
+    }
+
+    /**
+     * @return an executor whose submissions and executes all go to {@code lane}; shutting it down shuts
+     * down this one
+     */
+    public CompletableExecutorService lane(int lane) {
+        checkLane(lane);
+        return new DelegatingCompletableExecutorService(this) {
+            @Override
+            <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+                enqueue(task, lane);
+                return task;
+            }
+
+            @Override
+            public void execute(Runnable command) {
+                enqueue(new CompletableTask<Void>(ExecutionContext.wrap(command), null), lane);
+            }
+        };
+    }
+
+    public int getQueued(int lane) {
+        checkLane(lane);
+        return lanes[lane].size();
+    }
+
+    private void enqueue(CompletableTask<?> task, int lane) {
+        checkLane(lane);
+        Queued queued = new Queued(task, System.nanoTime());
+        lanes[lane].add(queued);
+        int current;
+        while ((current = drainers.get()) < parallelism) {
+            if (drainers.compareAndSet(current, current + 1)) {
+                try {
+                    delegate.execute(drain);
+                } catch (RuntimeException e) {
+                    drainers.decrementAndGet();
+                    // unless a running drainer already took it, nobody will run the task
+                    if (lanes[lane].remove(queued)) {
+                        task.completeExceptionally(e);
+                        throw e;
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            for (int i = 0; i < TASKS_PER_DRAIN; i++) {
+                Queued next = next();
+                if (next == null) {
+                    drainers.decrementAndGet();
+                    // a task enqueued while we were leaving may have seen all drainers busy
+                    if (isEmpty() || !tryRejoin()) {
+                        return;
+                    }
+                    continue;
+                }
+                next.task.run();
+            }
+            // give other work on the delegate a turn
+            try {
+                delegate.execute(drain);
+                return;
+            } catch (RejectedExecutionException e) {
+                // the delegate is shutting down, finish the queued tasks on this thread
+            }
+        }
+    }
+
+    private Queued next() {
+        long now = System.nanoTime();
+        for (int lane = lanes.length - 1; lane > 0; lane--) {
+            Queued head = lanes[lane].peek();
+            if (head != null && now - head.enqueuedAt >= agingNanos * lane) {
+                Queued aged = lanes[lane].poll();
+                if (aged != null) {
+                    return aged;
+                }
+            }
+        }
+        for (Queue<Queued> lane : lanes) {
+            Queued head = lane.poll();
+            if (head != null) {
+                return head;
+            }
+        }
+        return null;
+    }
+
+    private boolean isEmpty() {
+        for (Queue<Queued> lane : lanes) {
+            if (!lane.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean tryRejoin() {
+        int current;
+        while ((current = drainers.get()) < parallelism) {
+            if (drainers.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void checkLane(int lane) {
+        if (lane < 0 || lane >= lanes.length) {
+            throw new IllegalArgumentException("lane must be between 0 and " + (lanes.length - 1) + ": " + lane);
+        }
+    }
+
+    private static final class Queued {
+        final CompletableTask<?> task;
+        final long enqueuedAt;
+
+        Queued(CompletableTask<?> task, long enqueuedAt) {
+            this.task = task;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Completable executor that lets tasks through at no more than {@code permitsPerSecond}, with
+ * bursts of up to {@code burst} permits after a quiet period.
+ * <p>
+ * The bucket is a single {@code AtomicLong} holding the theoretical arrival time of the next
+ * permit (GCRA), so taking permits is one compare-and-set. A task over the limit reserves its slot
+ * and is handed to the delegate by the shared timer when the slot comes up; no pool thread waits
+ * for it. With a {@code maxWait}, tasks that would wait longer get a failed future with a
+ * {@link LimitExceededException} instead and reserve nothing.
+ * <p>
+ * Inspired by:
+ * https://brandur.org/rate-limiting
+ */
+public class RateLimitedExecutorService extends DelegatingCompletableExecutorService {
+
+    private static final long REJECTED = Long.MIN_VALUE;
+
+    private final long nanosPerPermit;
+    private final long burstNanos;
+    private final long maxWaitNanos;
+    private final HashedWheelTimer timer;
+    private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+    RateLimitedExecutorService(ExecutorService delegate, double permitsPerSecond, int burst, Duration maxWait,
+                               HashedWheelTimer timer) {
+        super(delegate);
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive: "
+                    + permitsPerSecond + ", " + burst);
+        }
+        this.nanosPerPermit = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstNanos = nanosPerPermit * burst;
+        this.maxWaitNanos = maxWait == null ? Long.MAX_VALUE : maxWait.toNanos();
+        this.timer = timer;
+    }
+
+    /**
+     * Submits a task that costs {@code permits} permits, e.g. the number of API calls it makes.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task, int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive: " + permits);
+        }
+        return dispatch(new CompletableTask<>(task), permits);
+    }
+
+    @Override
+    <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+        return dispatch(task, 1);
+    }
+
+    /**
+     * Throws a {@link LimitExceededException} over the limit. A command that has to wait is queued as
+     * a task, so a rejection by the delegate when its slot comes up fails that task rather than
+     * getting lost on the timer.
+     */
+    @Override
+    public void execute(Runnable command) {
+        Runnable task = ExecutionContext.wrap(command);
+        long delay = reserve(1);
+        if (delay == REJECTED) {
+            throw new LimitExceededException("Rate limit exceeded, no permit within " + Duration.ofNanos(maxWaitNanos));
+        }
+        if (delay <= 0) {
+            delegate.execute(task);
+        } else {
+            forwardAfter(new CompletableTask<Void>(task, null), delay);
+        }
+    }
+
+    private <T> CompletableFuture<T> dispatch(CompletableTask<T> task, int permits) {
+        long delay = reserve(permits);
+        if (delay == REJECTED) {
+            task.completeExceptionally(new LimitExceededException(
+                    "Rate limit exceeded, no " + permits + " permits within " + Duration.ofNanos(maxWaitNanos)));
+            return task;
+        }
+        if (delay <= 0) {
+            return forward(task);
+        }
+        forwardAfter(task, delay);
+        return task;
+    }
+
+    private <T> void forwardAfter(CompletableTask<T> task, long delayNanos) {
+        HashedWheelTimer.Timeout scheduled = timer.schedule(() -> forwardLater(task), delayNanos, TimeUnit.NANOSECONDS);
+        // a task cancelled while it waits leaves the wheel at once
+        task.whenComplete((result, ex) -> scheduled.cancel());
+    }
+
+    /**
+     * Runs on the timer, so a rejection fails the task instead of being thrown.
+     */
+    private <T> void forwardLater(CompletableTask<T> task) {
+        if (task.isDone()) {
+            return;
+        }
+        try {
+            forward(task);
+        } catch (RuntimeException e) {
+            task.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @return nanoseconds until the permits are available, or {@link #REJECTED}
+     */
+    private long reserve(int permits) {
+        long cost = nanosPerPermit * permits;
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now - burstNanos) + cost;
+            long delay = next - now - burstNanos;
+            if (delay > maxWaitNanos) {
+                return REJECTED;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return delay;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * How often and how soon a failed task is tried again: up to a number of attempts, with
+ * exponential backoff and jitter between them, for failures the predicate accepts.
+ * <pre>
+ * RetryPolicy.attempts(3)
+ *         .withBackoff(Duration.ofMillis(100), Duration.ofSeconds(1))
+ *         .retryOn(ex -&gt; ex instanceof TimeoutException);
+ * </pre>
+ * Instances are immutable, every {@code with} method returns a new policy.
+ */
+public final class RetryPolicy {
+
+    private static final double MULTIPLIER = 2;
+
+    private final int maxAttempts;
+    private final long initialDelayNanos;
+    private final long maxDelayNanos;
+    private final double jitter;
+    private final Predicate<Throwable> retryable;
+
+    private RetryPolicy(int maxAttempts, long initialDelayNanos, long maxDelayNanos, double jitter,
+                        Predicate<Throwable> retryable) {
+        this.maxAttempts = maxAttempts;
+        this.initialDelayNanos = initialDelayNanos;
+        this.maxDelayNanos = maxDelayNanos;
+        this.jitter = jitter;
+        this.retryable = retryable;
+    }
+
+    /**
+     * Retries any failure but a cancellation, 100 ms after the first attempt and doubling up to 10 s,
+     * with half of each delay random.
+     */
+    public static RetryPolicy attempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        return new RetryPolicy(maxAttempts, Duration.ofMillis(100).toNanos(), Duration.ofSeconds(10).toNanos(), 0.5,
+                ex -> !(ex instanceof CancellationException));
+    }
+
+    public RetryPolicy withBackoff(Duration initialDelay, Duration maxDelay) {
+        if (initialDelay.isNegative() || maxDelay.compareTo(initialDelay) < 0) {
+            throw new IllegalArgumentException("expected 0 <= initialDelay <= maxDelay but was "
+                    + initialDelay + ", " + maxDelay);
+        }
+        return new RetryPolicy(maxAttempts, initialDelay.toNanos(), maxDelay.toNanos(), jitter, retryable);
+    }
+
+    /**
+     * @param jitter share of each delay that is random, between 0 and 1
+     */
+    public RetryPolicy withJitter(double jitter) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1: " + jitter);
+        }
+        return new RetryPolicy(maxAttempts, initialDelayNanos, maxDelayNanos, jitter, retryable);
+    }
+
+    /**
+     * Only failures matching {@code retryable} are retried; cancellations never are.
+     */
+    public RetryPolicy retryOn(Predicate<Throwable> retryable) {
+        return new RetryPolicy(maxAttempts, initialDelayNanos, maxDelayNanos, jitter,
+                ex -> !(ex instanceof CancellationException) && retryable.test(ex));
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    boolean shouldRetry(int attempt, Throwable failure) {
+        return attempt < maxAttempts && retryable.test(failure);
+    }
+
+    /**
+     * @return the pause after failed attempt number {@code attempt}, counting from 1
+     */
+    long delayNanos(int attempt) {
+        double base = Math.min(maxDelayNanos, initialDelayNanos * Math.pow(MULTIPLIER, attempt - 1));
+        return (long) (base * (1 - jitter) + base * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{maxAttempts=" + maxAttempts + ", initialDelay=" + Duration.ofNanos(initialDelayNanos)
+                + ", maxDelay=" + Duration.ofNanos(maxDelayNanos) + ", jitter=" + jitter + "}";
+    }
+}
@@ -0,0 +1,96 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Completable executor that runs a failed task again according to a {@link RetryPolicy}.
+ * <p>
+ * Each attempt is a fresh submission to the delegate, and the pause before the next one is
+ * scheduled on the shared timer, so no worker sleeps between attempts. The whole sequence is
+ * bounded by the earliest of the optional overall timeout and the current {@link Deadline}: when
+ * it passes the caller's future fails with a {@link DeadlineExceededException} and the running
+ * attempt is cancelled, and no retry is started that could not finish before it. All attempts
+ * run under that deadline, so a {@code DeadlineExecutorService} delegate sees it too.
+ */
+public class RetryingExecutorService extends DelegatingCompletableExecutorService {
+
+    private final RetryPolicy policy;
+    private final Duration timeout;
+    private final HashedWheelTimer timer;
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * @param timeout bound for all attempts together, {@code null} for none besides the current deadline
+     */
+    RetryingExecutorService(ExecutorService delegate, RetryPolicy policy, Duration timeout, HashedWheelTimer timer) {
+        super(delegate);
+        this.policy = policy;
+        this.timeout = timeout;
+        this.timer = timer;
+    }
+
+    @Override
+    <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+        Deadline deadline = Deadline.current();
+        if (timeout != null) {
+            deadline = Deadline.after(timeout).earliest(deadline);
+        }
+        if (deadline != null) {
+            HashedWheelTimer.Timeout expiry = timer.schedule(() -> task.stop(
+                    new DeadlineExceededException("Retries did not succeed within their deadline")),
+                    deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+            task.whenComplete((result, ex) -> expiry.cancel());
+            Deadline bound = deadline;
+            deadline.run(() -> attempt(task, 1, bound));
+        } else {
+            attempt(task, 1, null);
+        }
+        return task;
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    private <T> void attempt(CompletableTask<T> task, int attempt, Deadline deadline) {
+        if (task.isDone()) {
+            return;
+        }
+        CompletableFuture<T> copy;
+        try {
+            // the caller's task only serves as the callable, each attempt is its own future
+            copy = forward(new CompletableTask<>((Callable<T>) task));
+        } catch (RuntimeException e) {
+            task.completeExceptionally(e);
+            return;
+        }
+        copy.whenComplete((result, ex) -> {
+            if (ex == null) {
+                task.complete(result);
+                return;
+            }
+            Throwable failure = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            long delay = policy.delayNanos(attempt);
+            if (task.isDone() || !policy.shouldRetry(attempt, failure)
+                    || deadline != null && deadline.remainingNanos() <= delay) {
+                task.completeExceptionally(failure);
+                return;
+            }
+            retries.increment();
+            timer.schedule(() -> {
+                if (deadline == null) {
+                    attempt(task, attempt + 1, null);
+                } else {
+                    deadline.run(() -> attempt(task, attempt + 1, deadline));
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        });
+        task.whenComplete((result, ex) -> copy.cancel(true));
+    }
+}
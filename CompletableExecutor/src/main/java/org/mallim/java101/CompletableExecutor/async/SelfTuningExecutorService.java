@@ -0,0 +1,266 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Completable executor on a thread pool that sizes itself from what it measures.
+ * <p>
+ * Every interval it takes the arrival rate, the mean time a task holds a worker and the share of
+ * that time spent off the CPU. By Little's law the pool needs about {@code rate x serviceTime}
+ * busy workers, plus enough to drain what is already queued within one interval. Blocking tasks
+ * may use many more threads than cores, CPU-bound ones are capped at
+ * {@code cores / (1 - blockedFraction)}. The pool grows at once and shrinks by at most a quarter
+ * per interval; idle workers above the new size time out and are reclaimed.
+ * <p>
+ * The recent decisions and the numbers behind them are kept, see {@link #getDecisions()}.
+ */
+public class SelfTuningExecutorService extends DelegatingCompletableExecutorService {
+
+    private static final double HEADROOM = 1.2;
+    private static final double SMOOTHING = 0.5;
+    private static final double MIN_CPU_SHARE = 0.05;
+    private static final double SATURATED_CPU = 0.9;
+    private static final int KEPT_DECISIONS = 32;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final MeasuredPool pool;
+    private final int minThreads;
+    private final int maxThreads;
+    private final Duration interval;
+    private final HashedWheelTimer timer;
+    private final int cores;
+    private final boolean cpuTimeSupported;
+    private final Deque<SizingDecision> decisions = new ArrayDeque<>(KEPT_DECISIONS);
+
+    // only touched by the timer thread
+    private long lastResize = System.nanoTime();
+    private double arrivalRate;
+    private double serviceNanos;
+    private double blockedFraction;
+    private volatile boolean forget;
+
+    SelfTuningExecutorService(ThreadFactory threadFactory, int minThreads, int maxThreads, Duration interval,
+                              HashedWheelTimer timer) {
+        this(threadFactory, minThreads, maxThreads, new LinkedBlockingQueue<>(), new ThreadPoolExecutor.AbortPolicy(),
+                interval, timer);
+    }
+
+    SelfTuningExecutorService(ThreadFactory threadFactory, int minThreads, int maxThreads, BlockingQueue<Runnable> queue,
+                              RejectedExecutionHandler handler, Duration interval, HashedWheelTimer timer) {
+        this(new MeasuredPool(minThreads, threadFactory, queue, handler), minThreads, maxThreads, interval, timer,
+                Runtime.getRuntime().availableProcessors(), MeasuredPool.cpuTimeSupported());
+    }
+
+    /**
+     * Sizes for {@code cores} cores, measuring CPU time only if {@code cpuTimeSupported}, so that
+     * tests can drive {@link #decide(double, long, long, long, long, int, int)} on any machine.
+     */
+    SelfTuningExecutorService(int minThreads, int maxThreads, Duration interval, HashedWheelTimer timer, int cores,
+                              boolean cpuTimeSupported) {
+        this(new MeasuredPool(minThreads, Executors.defaultThreadFactory(), new LinkedBlockingQueue<>(),
+                new ThreadPoolExecutor.AbortPolicy()), minThreads, maxThreads, interval, timer, cores, cpuTimeSupported);
+    }
+
+    private SelfTuningExecutorService(MeasuredPool pool, int minThreads, int maxThreads, Duration interval,
+                                      HashedWheelTimer timer, int cores, boolean cpuTimeSupported) {
+        super(pool);
+        if (minThreads <= 0 || minThreads > maxThreads) {
+            throw new IllegalArgumentException("expected 0 < minThreads <= maxThreads but was " + minThreads + ", " + maxThreads);
+        }
+        this.pool = pool;
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.interval = interval;
+        this.timer = timer;
+        this.cores = cores;
+        this.cpuTimeSupported = cpuTimeSupported;
+        timer.schedule(this::resize, interval);
+    }
+
+    public int getPoolSize() {
+        return pool.getCorePoolSize();
+    }
+
+    /**
+     * @return the most recent decision, or {@code null} before the first interval has passed
+     */
+    public synchronized SizingDecision getLastDecision() {
+        return decisions.peekLast();
+    }
+
+    /**
+     * @return the last {@value #KEPT_DECISIONS} decisions, oldest first
+     */
+    public synchronized List<SizingDecision> getDecisions() {
+        return new ArrayList<>(decisions);
+    }
+
+    /**
+     * Forgets the load measured so far, such as synthetic warm-up tasks, so that the next decisions
+     * rest on the traffic from now on.
+     */
+    void resetStatistics() {
+        pool.arrivals.reset();
+        pool.completions.reset();
+        pool.wallNanos.reset();
+        pool.cpuNanos.reset();
+        forget = true;
+    }
+
+    private void resize() {
+        if (pool.isShutdown()) {
+            return;
+        }
+        try {
+            SizingDecision decision = decide();
+            synchronized (this) {
+                if (decisions.size() == KEPT_DECISIONS) {
+                    decisions.removeFirst();
+                }
+                decisions.addLast(decision);
+            }
+        } finally {
+            timer.schedule(this::resize, interval);
+        }
+    }
+
+    private SizingDecision decide() {
+        long now = System.nanoTime();
+        double seconds = (now - lastResize) / 1e9;
+        lastResize = now;
+        SizingDecision decision = decide(seconds, pool.arrivals.sumThenReset(), pool.completions.sumThenReset(),
+                pool.wallNanos.sumThenReset(), pool.cpuNanos.sumThenReset(), pool.getCorePoolSize(), pool.getQueue().size());
+
+        int current = decision.getPreviousSize();
+        int target = decision.getNewSize();
+        if (target > current) {
+            pool.setMaximumPoolSize(target);
+            pool.setCorePoolSize(target);
+        } else if (target < current) {
+            pool.setCorePoolSize(target);
+            pool.setMaximumPoolSize(target);
+        }
+        return decision;
+    }
+
+    /**
+     * Folds the measurements of one interval of {@code seconds} into the load and picks the pool size
+     * for it, without applying it.
+     */
+    SizingDecision decide(double seconds, long arrivals, long completions, long wallNanos, long cpuNanos,
+                          int current, int queued) {
+        if (forget) {
+            forget = false;
+            arrivalRate = 0;
+            serviceNanos = 0;
+            blockedFraction = 0;
+        }
+
+        arrivalRate = smooth(arrivalRate, arrivals / seconds);
+        if (completions > 0) {
+            serviceNanos = smooth(serviceNanos, (double) wallNanos / completions);
+            if (cpuTimeSupported && wallNanos > 0) {
+                blockedFraction = smooth(blockedFraction, Math.max(0, 1 - (double) cpuNanos / wallNanos));
+            }
+        }
+
+        double serviceSeconds = serviceNanos / 1e9;
+        String reason;
+        int target;
+        if (serviceNanos == 0) {
+            target = queued > 0 ? current * 2 : current;
+            reason = queued > 0 ? "queued before first sample" : "no samples";
+        } else {
+            double busy = arrivalRate * serviceSeconds;
+            double backlog = queued * serviceSeconds / interval.toNanos() * 1e9;
+            int demand = (int) Math.ceil((busy + backlog) * HEADROOM);
+            int cpuCap = (int) Math.ceil(cores / Math.max(1 - blockedFraction, MIN_CPU_SHARE));
+            target = Math.min(demand, cpuCap);
+            reason = demand <= cpuCap ? "demand" : "cpu bound";
+            // threads waiting for a core look blocked too, so more of them would only add to the wait
+            if (cpuTimeSupported && cpuNanos / (seconds * 1e9 * cores) >= SATURATED_CPU && target > cores) {
+                target = Math.min(target, Math.max(cores, current - Math.max(1, current / 4)));
+                reason = "cpu saturated";
+            }
+        }
+        if (target < current) {
+            target = Math.max(target, current - Math.max(1, current / 4));
+        }
+        if (target <= minThreads) {
+            target = minThreads;
+            reason = "min";
+        } else if (target >= maxThreads) {
+            target = maxThreads;
+            reason = "max";
+        }
+        return new SizingDecision(Instant.now(), arrivalRate, Duration.ofNanos((long) serviceNanos),
+                blockedFraction, queued, current, target, reason);
+    }
+
+    private static double smooth(double previous, double sample) {
+        return previous == 0 ? sample : previous + SMOOTHING * (sample - previous);
+    }
+
+    /**
+     * Counts arrivals and measures wall and CPU time of every task in the pool's own hooks, so no
+     * task is wrapped.
+     */
+    private static final class MeasuredPool extends ThreadPoolExecutor {
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        final LongAdder arrivals = new LongAdder();
+        final LongAdder completions = new LongAdder();
+        final LongAdder wallNanos = new LongAdder();
+        final LongAdder cpuNanos = new LongAdder();
+        final boolean cpuTimeSupported = cpuTimeSupported();
+        private final ThreadLocal<long[]> started = ThreadLocal.withInitial(() -> new long[2]);
+
+        MeasuredPool(int threads, ThreadFactory threadFactory, BlockingQueue<Runnable> queue,
+                     RejectedExecutionHandler handler) {
+            super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue, threadFactory, handler);
+            allowCoreThreadTimeOut(true);
+        }
+
+        static boolean cpuTimeSupported() {
+            return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            arrivals.increment();
+            super.execute(command);
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            long[] start = started.get();
+            start[0] = System.nanoTime();
+            start[1] = cpuTimeSupported ? THREADS.getCurrentThreadCpuTime() : 0;
+        }
+
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+            long[] start = started.get();
+            wallNanos.add(System.nanoTime() - start[0]);
+            if (cpuTimeSupported) {
+                cpuNanos.add(THREADS.getCurrentThreadCpuTime() - start[1]);
+            }
+            completions.increment();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * One resize decision of a {@link SelfTuningExecutorService}, with the measurements it was based on.
+ */
+public final class SizingDecision {
+
+    private final Instant time;
+    private final double arrivalRate;
+    private final Duration serviceTime;
+    private final double blockedFraction;
+    private final int queued;
+    private final int previousSize;
+    private final int newSize;
+    private final String reason;
+
+    SizingDecision(Instant time, double arrivalRate, Duration serviceTime, double blockedFraction, int queued,
+                   int previousSize, int newSize, String reason) {
+        this.time = time;
+        this.arrivalRate = arrivalRate;
+        this.serviceTime = serviceTime;
+        this.blockedFraction = blockedFraction;
+        this.queued = queued;
+        this.previousSize = previousSize;
+        this.newSize = newSize;
+        this.reason = reason;
+    }
+
+    public Instant getTime() {
+        return time;
+    }
+
+    /**
+     * @return smoothed submissions per second
+     */
+    public double getArrivalRate() {
+        return arrivalRate;
+    }
+
+    /**
+     * @return smoothed wall-clock time a task occupies a worker
+     */
+    public Duration getServiceTime() {
+        return serviceTime;
+    }
+
+    /**
+     * @return share of the service time spent off the CPU, waiting on I/O, locks or sleeps
+     */
+    public double getBlockedFraction() {
+        return blockedFraction;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public int getPreviousSize() {
+        return previousSize;
+    }
+
+    public int getNewSize() {
+        return newSize;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d -> %d threads (%s): %.1f tasks/s x %.3f ms, %.0f%% blocked, %d queued",
+                previousSize, newSize, reason, arrivalRate, serviceTime.toNanos() / 1e6, blockedFraction * 100, queued);
+    }
+}
@@ -5,41 +5,58 @@ import java.util.concurrent.*;
 
 public class TimedCompletables {
 
-    public static Executor timed(ExecutorService executorService, Duration duration) {
+    /**
+     * Fails every task that is not done within {@code duration} after submit with a
+     * {@link TimeoutException}. The timeout completes the future on the common pool, so its
+     * non-async dependents run there rather than on the shared timer thread.
+     */
+    public static CompletableExecutorService timed(ExecutorService executorService, Duration duration) {
         return new TimeOutExecutorService(executorService, duration);
     }
 
+    /**
+     * Bounds every task by the caller's {@link Deadline}, or by {@code defaultTimeout} after submit
+     * when that comes first.
+     */
+    public static DeadlineExecutorService withDeadlines(ExecutorService executorService, Duration defaultTimeout) {
+        return new DeadlineExecutorService(executorService, defaultTimeout);
+    }
+
+    /**
+     * Virtual thread per task with a per-task timeout; {@code maxConcurrency} of 0 means unbounded.
+     */
+    public static CompletableExecutorService timedVirtual(Duration duration, int maxConcurrency) {
+        ExecutorService threads = maxConcurrency > 0
+                ? VirtualThreads.newBoundedExecutor("timed-virtual-", maxConcurrency)
+                : VirtualThreads.newThreadPerTaskExecutor("timed-virtual-");
+        return new TimeOutExecutorService(threads, duration);
+    }
+
     static class TimeOutExecutorService extends DelegatingCompletableExecutorService {
         private final Duration timeout;
-        private final ScheduledExecutorService schedulerExecutor;
+        private final HashedWheelTimer timer;
 
         TimeOutExecutorService(ExecutorService delegate, Duration timeout) {
+            this(delegate, timeout, HashedWheelTimer.shared());
+        }
+
+        TimeOutExecutorService(ExecutorService delegate, Duration timeout, HashedWheelTimer timer) {
             super(delegate);
             this.timeout = timeout;
-            schedulerExecutor = Executors.newScheduledThreadPool(1);
+            this.timer = timer;
         }
 
         // http://stackoverflow.com/questions/23575067/timeout-with-default-value-in-java-8-completablefuture/24457111#24457111
         @Override
-        public <T> CompletableFuture<T> submit(Callable<T> task) {
-            CompletableFuture<T> cf = new CompletableFuture<>();
-            Future<?> future = delegate.submit(() -> {
-                try {
-                    cf.complete(task.call());
-                } catch (CancellationException e) {
-                    cf.cancel(true);
-                } catch (Throwable ex) {
-                    cf.completeExceptionally(ex);
-                }
-            });
-
-            schedulerExecutor.schedule(() -> {
-                if (!cf.isDone()) {
-                    cf.completeExceptionally(new TimeoutException("Timeout after " + timeout));
-                    future.cancel(true);
-                }
-            }, timeout.toMillis(), TimeUnit.MILLISECONDS);
-            return cf;
+        <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+            super.dispatch(task);
+
+            HashedWheelTimer.Timeout scheduled = timer.schedule(
+                    () -> task.stop(new TimeoutException("Timeout after " + timeout)),
+                    timeout.toNanos(), TimeUnit.NANOSECONDS, ForkJoinPool.commonPool());
+            // drop the timeout from the wheel as soon as the task finishes early
+            task.whenComplete((result, ex) -> scheduled.cancel());
+            return task;
         }
     }
 }
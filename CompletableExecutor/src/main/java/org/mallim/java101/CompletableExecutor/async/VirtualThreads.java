@@ -0,0 +1,98 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates thread-per-task executors backed by virtual threads when the running JVM has them (21+).
+ * <p>
+ * The module is compiled for Java 8, so the JDK methods are looked up reflectively. On older JVMs
+ * the executors fall back to platform threads with the same naming: a cached pool when unbounded, a
+ * fixed pool when bounded, so that waiting tasks queue up instead of each holding a thread.
+ */
+final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = method(Thread.class, "ofVirtual");
+    private static final Method BUILDER_NAME = method(builderType(), "name", String.class, long.class);
+    private static final Method BUILDER_FACTORY = method(builderType(), "factory");
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR =
+            method(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @param namePrefix thread names are the prefix followed by a sequence number
+     */
+    static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        ThreadFactory factory = virtualThreadFactory(namePrefix);
+        if (factory != null) {
+            try {
+                return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // fall through to platform threads
+            }
+        }
+        return Executors.newCachedThreadPool(platformThreadFactory(namePrefix));
+    }
+
+    /**
+     * Same as {@link #newThreadPerTaskExecutor(String)} with at most {@code maxConcurrency} tasks
+     * running at once.
+     */
+    static ExecutorService newBoundedExecutor(String namePrefix, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        ThreadFactory factory = virtualThreadFactory(namePrefix);
+        if (factory != null) {
+            try {
+                ExecutorService threads = (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+                return new ConcurrencyLimitedExecutorService(threads, maxConcurrency);
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // fall through to platform threads
+            }
+        }
+        return Executors.newFixedThreadPool(maxConcurrency, platformThreadFactory(namePrefix));
+    }
+
+    private static ThreadFactory platformThreadFactory(String namePrefix) {
+        return new ThreadFactoryBuilder().setNameFormat(namePrefix + "%d").build();
+    }
+
+    private static ThreadFactory virtualThreadFactory(String namePrefix) {
+        if (OF_VIRTUAL == null || BUILDER_NAME == null || BUILDER_FACTORY == null || NEW_THREAD_PER_TASK_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // preview API not enabled on 19/20
+            return null;
+        }
+    }
+
+    private static Class<?> builderType() {
+        try {
+            return Class.forName("java.lang.Thread$Builder");
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
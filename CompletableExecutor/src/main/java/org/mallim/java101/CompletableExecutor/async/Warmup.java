@@ -0,0 +1,139 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Brings executors to steady state before they take traffic, so that the first real calls do not pay
+ * for thread creation, class loading and interpreted code.
+ * <p>
+ * Synthetic tasks are meant for the pool at the bottom of a decorator chain, see {@link #pool}, so
+ * they stay out of {@link ExecutorMetrics}, circuit breaker windows and adaptive limits. That also
+ * means the decorators themselves are not warmed, only the threads, the pool's queue and the timer.
+ * Self-tuning pools measure inside the pool itself and are told to forget with {@link #resetStatistics}.
+ */
+public final class Warmup {
+
+    private static final Callable<Long> TASK = System::nanoTime;
+
+    private Warmup() {
+    }
+
+    /**
+     * @return the executor at the bottom of {@code executor}'s decorators, the one that owns the threads
+     */
+    public static ExecutorService pool(ExecutorService executor) {
+        ExecutorService current = executor;
+        while (current instanceof DelegatingExecutorService) {
+            current = ((DelegatingExecutorService) current).delegate;
+        }
+        return current;
+    }
+
+    /**
+     * Makes the self-tuning pools underneath {@code executor} forget the load they measured so far.
+     */
+    public static void resetStatistics(ExecutorService executor) {
+        ExecutorService current = executor;
+        while (current instanceof DelegatingExecutorService) {
+            if (current instanceof SelfTuningExecutorService) {
+                ((SelfTuningExecutorService) current).resetStatistics();
+            }
+            current = ((DelegatingExecutorService) current).delegate;
+        }
+    }
+
+    /**
+     * Starts all core threads of the thread pools underneath {@code executor}.
+     *
+     * @return the number of threads started
+     */
+    public static int prestart(ExecutorService executor) {
+        int started = 0;
+        ExecutorService current = executor;
+        while (current != null) {
+            if (current instanceof ThreadPoolExecutor) {
+                started += ((ThreadPoolExecutor) current).prestartAllCoreThreads();
+            }
+            current = current instanceof DelegatingExecutorService ? ((DelegatingExecutorService) current).delegate : null;
+        }
+        return started;
+    }
+
+    /**
+     * Runs {@code tasks} synthetic tasks through {@code executor} one after the other, with an
+     * {@link ExecutionContext} open so that context propagation is warmed as well.
+     *
+     * @return a future of the time all tasks took, failed with the first failure or rejection
+     */
+    public static CompletableFuture<Duration> run(CompletableExecutorService executor, int tasks) {
+        CompletableFuture<Duration> done = new CompletableFuture<>();
+        long start = System.nanoTime();
+        try (ExecutionContext.Scope scope = ExecutionContext.open("warmup", "true")) {
+            next(executor, new AtomicInteger(tasks), done, start);
+        }
+        return done;
+    }
+
+    private static void next(CompletableExecutorService executor, AtomicInteger remaining,
+                             CompletableFuture<Duration> done, long start) {
+        // loop while tasks complete inline, e.g. on a caller-runs pool, rather than recurse
+        while (remaining.getAndDecrement() > 0) {
+            CompletableFuture<Long> task;
+            try {
+                task = executor.submit(TASK);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+                return;
+            }
+            if (!task.isDone()) {
+                task.whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        done.completeExceptionally(ex);
+                    } else {
+                        next(executor, remaining, done, start);
+                    }
+                });
+                return;
+            }
+            if (task.isCompletedExceptionally()) {
+                task.whenComplete((result, ex) -> done.completeExceptionally(ex));
+                return;
+            }
+        }
+        done.complete(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Schedules {@code timeouts} entries on the shared timer and cancels every other one, which warms
+     * both the firing and the cancelling path.
+     *
+     * @return a future of the time until the last entry that was not cancelled fired
+     */
+    public static CompletableFuture<Duration> timer(int timeouts) {
+        HashedWheelTimer timer = HashedWheelTimer.shared();
+        CompletableFuture<Duration> done = new CompletableFuture<>();
+        long start = System.nanoTime();
+        // one extra count is released once all entries are scheduled
+        AtomicInteger pending = new AtomicInteger(1);
+        Runnable fired = () -> {
+            if (pending.decrementAndGet() == 0) {
+                done.complete(Duration.ofNanos(System.nanoTime() - start));
+            }
+        };
+        for (int i = 0; i < timeouts; i++) {
+            pending.incrementAndGet();
+            HashedWheelTimer.Timeout timeout = timer.schedule(fired, 1, TimeUnit.MILLISECONDS);
+            if (i % 2 == 1 && timeout.cancel()) {
+                pending.decrementAndGet();
+            }
+        }
+        fired.run();
+        return done;
+    }
+}
@@ -0,0 +1,143 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Completable executor on top of an async-mode {@code ForkJoinPool}.
+ * <p>
+ * Tasks submitted from one of the pool's own workers, e.g. a continuation passed this executor in
+ * {@code thenApplyAsync(fn, executor)}, are forked onto that worker's local deque instead of the
+ * shared submission queue, so they tend to run on the same core as the stage that produced their
+ * input. Idle workers steal from the other end of the deque.
+ */
+public class WorkStealingCompletableExecutorService extends DelegatingCompletableExecutorService {
+
+    private final ForkJoinPool pool;
+    private final LongAdder localForks = new LongAdder();
+    private final LongAdder externalSubmissions = new LongAdder();
+
+    WorkStealingCompletableExecutorService(int parallelism, String namePrefix) {
+        this(new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName(namePrefix + worker.getPoolIndex());
+            return worker;
+        }, null, true));
+    }
+
+    private WorkStealingCompletableExecutorService(ForkJoinPool pool) {
+        super(pool);
+        this.pool = pool;
+    }
+
+    @Override
+    <T> CompletableFuture<T> dispatch(CompletableTask<T> task) {
+        execute(task);
+        return task;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        command = ExecutionContext.wrap(command);
+        Thread current = Thread.currentThread();
+        if (current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == pool) {
+            localForks.increment();
+            ForkJoinTask.adapt(command).fork();
+        } else {
+            externalSubmissions.increment();
+            pool.execute(command);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(pool.getParallelism(), pool.getPoolSize(), pool.getActiveThreadCount(),
+                pool.getRunningThreadCount(), pool.getStealCount(), pool.getQueuedTaskCount(),
+                pool.getQueuedSubmissionCount(), localForks.sum(), externalSubmissions.sum());
+    }
+
+    /**
+     * Point-in-time view of the pool, for tuning {@code parallelism}.
+     */
+    public static final class Stats {
+        private final int parallelism;
+        private final int poolSize;
+        private final int activeThreads;
+        private final int runningThreads;
+        private final long steals;
+        private final long queuedTasks;
+        private final int queuedSubmissions;
+        private final long localForks;
+        private final long externalSubmissions;
+
+        Stats(int parallelism, int poolSize, int activeThreads, int runningThreads, long steals,
+              long queuedTasks, int queuedSubmissions, long localForks, long externalSubmissions) {
+            this.parallelism = parallelism;
+            this.poolSize = poolSize;
+            this.activeThreads = activeThreads;
+            this.runningThreads = runningThreads;
+            this.steals = steals;
+            this.queuedTasks = queuedTasks;
+            this.queuedSubmissions = queuedSubmissions;
+            this.localForks = localForks;
+            this.externalSubmissions = externalSubmissions;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getActiveThreads() {
+            return activeThreads;
+        }
+
+        public int getRunningThreads() {
+            return runningThreads;
+        }
+
+        /**
+         * @return tasks taken by a worker from another worker's deque, an estimate lagging behind
+         * workers that are still active
+         */
+        public long getSteals() {
+            return steals;
+        }
+
+        /**
+         * @return tasks sitting in the workers' local deques
+         */
+        public long getQueuedTasks() {
+            return queuedTasks;
+        }
+
+        /**
+         * @return tasks submitted from outside the pool and not yet picked up
+         */
+        public int getQueuedSubmissions() {
+            return queuedSubmissions;
+        }
+
+        public long getLocalForks() {
+            return localForks;
+        }
+
+        public long getExternalSubmissions() {
+            return externalSubmissions;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{parallelism=" + parallelism + ", poolSize=" + poolSize
+                    + ", activeThreads=" + activeThreads + ", runningThreads=" + runningThreads
+                    + ", steals=" + steals + ", queuedTasks=" + queuedTasks
+                    + ", queuedSubmissions=" + queuedSubmissions + ", localForks=" + localForks
+                    + ", externalSubmissions=" + externalSubmissions + "}";
+        }
+    }
+}
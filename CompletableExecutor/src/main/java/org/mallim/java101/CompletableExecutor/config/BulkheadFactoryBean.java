@@ -0,0 +1,95 @@
+package org.mallim.java101.CompletableExecutor.config;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutorService;
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutors;
+import org.mallim.java101.CompletableExecutor.async.TimedCompletables;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the isolated, instrumented executor of one {@code executors.<name>} entry and shuts it down
+ * with the context.
+ */
+public class BulkheadFactoryBean implements FactoryBean<CompletableExecutorService>, DisposableBean {
+
+    private final String name;
+    private final BulkheadProperties properties;
+    private CompletableExecutorService executor;
+
+    public BulkheadFactoryBean(String name, BulkheadProperties properties) {
+        this.name = name;
+        this.properties = properties;
+    }
+
+    @Override
+    public synchronized CompletableExecutorService getObject() {
+        if (executor == null) {
+            executor = create();
+        }
+        return executor;
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return CompletableExecutorService.class;
+    }
+
+    @Override
+    public boolean isSingleton() {
+        return true;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private CompletableExecutorService create() {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(name + "-%d").build();
+        ExecutorService pool;
+        switch (properties.getKind()) {
+            case SELF_TUNING:
+                pool = CompletableExecutors.selfTuning(threadFactory, properties.getMinThreads(),
+                        properties.getThreads(), queue(), rejection());
+                break;
+            case VIRTUAL:
+                pool = CompletableExecutors.virtual(properties.getThreads());
+                break;
+            default:
+                pool = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(), 0L,
+                        TimeUnit.MILLISECONDS, queue(), threadFactory, rejection());
+                break;
+        }
+        if (properties.getTimeoutMillis() > 0) {
+            pool = TimedCompletables.withDeadlines(pool, Duration.ofMillis(properties.getTimeoutMillis()));
+        }
+        return CompletableExecutors.instrumented(name, pool);
+    }
+
+    private BlockingQueue<Runnable> queue() {
+        int capacity = properties.getQueueCapacity();
+        if (capacity < 0) {
+            return new LinkedBlockingQueue<>();
+        }
+        return capacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(capacity);
+    }
+
+    private RejectedExecutionHandler rejection() {
+        return properties.getRejection() == BulkheadProperties.Rejection.CALLER_RUNS
+                ? new ThreadPoolExecutor.CallerRunsPolicy() : new ThreadPoolExecutor.AbortPolicy();
+    }
+}
@@ -0,0 +1,59 @@
+package org.mallim.java101.CompletableExecutor.config;
+
+import lombok.Data;
+
+/**
+ * Settings of one named executor, bound from {@code executors.<name>.*}.
+ */
+@Data
+public class BulkheadProperties {
+
+    public enum Kind {
+        /**
+         * Thread pool of {@code threads} threads.
+         */
+        FIXED,
+        /**
+         * Thread pool sizing itself between {@code min-threads} and {@code threads}.
+         */
+        SELF_TUNING,
+        /**
+         * Virtual thread per task with at most {@code threads} running at once; tasks over that wait
+         * without bound, so {@code queue-capacity} and {@code rejection} must not be set.
+         */
+        VIRTUAL
+    }
+
+    public enum Rejection {
+        /**
+         * Fail the submit with a {@code RejectedExecutionException}.
+         */
+        ABORT,
+        /**
+         * Run the task on the submitting thread.
+         */
+        CALLER_RUNS
+    }
+
+    private Kind kind = Kind.FIXED;
+
+    private int threads = 10;
+
+    /**
+     * Fewest threads of a self-tuning pool.
+     */
+    private int minThreads = 2;
+
+    /**
+     * Tasks waiting for a thread before the rejection applies; 0 only hands tasks to idle threads and
+     * -1 is unbounded.
+     */
+    private int queueCapacity = 100;
+
+    private Rejection rejection = Rejection.ABORT;
+
+    /**
+     * Deadline of every task in milliseconds, 0 for none.
+     */
+    private long timeoutMillis;
+}
@@ -0,0 +1,98 @@
+package org.mallim.java101.CompletableExecutor.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AutowireCandidateQualifier;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.boot.bind.PropertySourcesPropertyValues;
+import org.springframework.boot.bind.RelaxedDataBinder;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Registers an executor bean for every name under {@code executors.*}, e.g.
+ * <pre>
+ * executors.lookup.kind=FIXED
+ * executors.lookup.threads=4
+ * executors.lookup.queue-capacity=20
+ * executors.lookup.timeout-millis=500
+ * </pre>
+ * The bean is named and qualified after the entry, so {@code @Async("lookup")} runs on a pool of its
+ * own and a slow dependency cannot take the threads of the others.
+ */
+@Slf4j
+public class BulkheadRegistrar implements BeanDefinitionRegistryPostProcessor, EnvironmentAware {
+
+    static final String PREFIX = "executors";
+
+    private ConfigurableEnvironment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = (ConfigurableEnvironment) environment;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+        for (String name : names()) {
+            if (registry.containsBeanDefinition(name)) {
+                throw new IllegalStateException(PREFIX + "." + name + " clashes with an existing bean named " + name);
+            }
+            BulkheadProperties properties = bind(name);
+            checkVirtual(name, properties);
+            AbstractBeanDefinition definition = BeanDefinitionBuilder.rootBeanDefinition(BulkheadFactoryBean.class)
+                    .addConstructorArgValue(name)
+                    .addConstructorArgValue(properties)
+                    .getBeanDefinition();
+            definition.addQualifier(new AutowireCandidateQualifier(Qualifier.class, name));
+            registry.registerBeanDefinition(name, definition);
+            log.info("Registered executor {}: {}", name, properties);
+        }
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+    }
+
+    private Set<String> names() {
+        Set<String> names = new TreeSet<>();
+        for (String key : new RelaxedPropertyResolver(environment, PREFIX + ".").getSubProperties("").keySet()) {
+            int dot = key.indexOf('.');
+            if (dot > 0) {
+                names.add(key.substring(0, dot));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * A virtual executor has no queue to bound and never rejects, so setting either is a mistake.
+     */
+    private void checkVirtual(String name, BulkheadProperties properties) {
+        if (properties.getKind() != BulkheadProperties.Kind.VIRTUAL) {
+            return;
+        }
+        RelaxedPropertyResolver settings = new RelaxedPropertyResolver(environment, PREFIX + "." + name + ".");
+        for (String setting : new String[]{"queue-capacity", "rejection"}) {
+            if (settings.containsProperty(setting)) {
+                throw new IllegalStateException(PREFIX + "." + name + "." + setting + " does not apply to VIRTUAL executors");
+            }
+        }
+    }
+
+    private BulkheadProperties bind(String name) {
+        BulkheadProperties properties = new BulkheadProperties();
+        RelaxedDataBinder binder = new RelaxedDataBinder(properties, PREFIX + "." + name);
+        binder.bind(new PropertySourcesPropertyValues(environment.getPropertySources()));
+        return properties;
+    }
+}
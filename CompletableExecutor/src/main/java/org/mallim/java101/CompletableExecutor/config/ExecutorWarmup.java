@@ -0,0 +1,93 @@
+package org.mallim.java101.CompletableExecutor.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutorService;
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutors;
+import org.mallim.java101.CompletableExecutor.async.Warmup;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Warms the pool under every completable executor bean and the shared timer once the context is
+ * refreshed, which is before any {@code CommandLineRunner} starts calling them.
+ * <p>
+ * Beans that decorate the same pool, such as {@code timed} and {@code retrying}, warm it once. Only
+ * the pools and the timer are warmed: the synthetic tasks run on the pool itself, so metrics, breakers
+ * and adaptive limits never see them, but the decorators' own code, such as timeouts, deadlines and
+ * instrumentation, is not exercised and the first real calls through it still start out interpreted.
+ */
+@Slf4j
+public class ExecutorWarmup implements ApplicationListener<ContextRefreshedEvent> {
+
+    private final WarmupProperties properties;
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    public ExecutorWarmup(WarmupProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (!properties.isEnabled() || !done.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        Map<String, CompletableExecutorService> executors =
+                event.getApplicationContext().getBeansOfType(CompletableExecutorService.class);
+
+        // all pools and the timer warm up at the same time, each pool under the first bean using it
+        Set<ExecutorService> pools = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<String, CompletableFuture<Duration>> runs = new LinkedHashMap<>();
+        int started = 0;
+        for (Map.Entry<String, CompletableExecutorService> executor : executors.entrySet()) {
+            ExecutorService pool = Warmup.pool(executor.getValue());
+            if (pools.add(pool)) {
+                started += Warmup.prestart(pool);
+                runs.put(executor.getKey(), Warmup.run(CompletableExecutors.completable(pool), properties.getTasks()));
+            }
+        }
+        runs.put("timer", Warmup.timer(properties.getTasks()));
+
+        long deadline = start + TimeUnit.SECONDS.toNanos(properties.getTimeoutSeconds());
+        boolean ready = true;
+        for (Map.Entry<String, CompletableFuture<Duration>> run : runs.entrySet()) {
+            ready &= await(run.getKey(), run.getValue(), deadline);
+        }
+        executors.values().forEach(Warmup::resetStatistics);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (ready) {
+            log.info("Executors ready after {} ms, {} threads prestarted", millis, started);
+        } else {
+            log.warn("Executors partly warmed up after {} ms, {} threads prestarted", millis, started);
+        }
+    }
+
+    private boolean await(String name, CompletableFuture<Duration> run, long deadline) {
+        try {
+            Duration took = run.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            log.debug("Warmed up {} in {} ms", name, took.toMillis());
+            return true;
+        } catch (TimeoutException e) {
+            log.warn("Warm-up of {} did not finish within {} s", name, properties.getTimeoutSeconds());
+        } catch (ExecutionException e) {
+            log.warn("Warm-up of {} failed", name, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Warm-up of {} was interrupted", name);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package org.mallim.java101.CompletableExecutor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the load the {@code Runner} generates, bound from {@code load.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "load")
+public class LoadProperties {
+
+    public enum Mode {
+        /**
+         * Ten calls, each result logged.
+         */
+        DEMO,
+        /**
+         * Calls started at a constant rate, whether or not earlier ones have finished.
+         */
+        OPEN,
+        /**
+         * A fixed number of callers, each starting its next call when the last one finished.
+         */
+        CLOSED
+    }
+
+    public enum Call {
+        ASYNC, TIMED, DELAYED, DELAYED_TIMEOUT
+    }
+
+    private Mode mode = Mode.DEMO;
+
+    private Call call = Call.TIMED;
+
+    /**
+     * Calls per second in open mode, above 0.
+     */
+    private double rate = 50;
+
+    /**
+     * Concurrent callers in closed mode, at least 1.
+     */
+    private int concurrency = 10;
+
+    private int warmupSeconds = 5;
+
+    private int durationSeconds = 30;
+}
@@ -2,9 +2,15 @@ package org.mallim.java101.CompletableExecutor.config;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
+import org.mallim.java101.CompletableExecutor.async.CircuitBreakerExecutorService;
+import org.mallim.java101.CompletableExecutor.async.CircuitBreakerPolicy;
 import org.mallim.java101.CompletableExecutor.async.CompletableExecutors;
+import org.mallim.java101.CompletableExecutor.async.PriorityExecutorService;
+import org.mallim.java101.CompletableExecutor.async.RetryPolicy;
+import org.mallim.java101.CompletableExecutor.async.SelfTuningExecutorService;
 import org.mallim.java101.CompletableExecutor.async.TimedCompletables;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
@@ -14,22 +20,91 @@ import java.time.Duration;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Configuration
 @EnableAsync
+@EnableConfigurationProperties(WarmupProperties.class)
 public class SpringAsyncConfig implements AsyncConfigurer {
 
+    /**
+     * Name of the executor for {@code @Async} methods without a qualifier.
+     */
+    public static final String DEFAULT_EXECUTOR = "async";
+
+    /**
+     * Executors declared under {@code executors.<name>.*}, one isolated pool each.
+     */
+    @Bean
+    public static BulkheadRegistrar bulkheadRegistrar() {
+        return new BulkheadRegistrar();
+    }
+
+    // async and timed stay declared here rather than under executors.*: async is the AsyncConfigurer
+    // default and timed shares its circuit breaker with retrying, neither of which an entry can express
+    @Bean
+    public SelfTuningExecutorService asyncPool() {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("async-%d").build();
+        return CompletableExecutors.selfTuning(threadFactory, 2, 64);
+    }
+
+    @Bean
+    public SelfTuningExecutorService timedPool() {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("timed-%d").build();
+        return CompletableExecutors.selfTuning(threadFactory, 2, 64);
+    }
+
     @Override
+    @Bean(name = DEFAULT_EXECUTOR)
     public Executor getAsyncExecutor() {
-        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("async-%d").build();
-        return CompletableExecutors.completable(Executors.newFixedThreadPool(10, threadFactory));
+        return CompletableExecutors.instrumented("async", asyncPool());
+    }
+
+    @Bean
+    public CircuitBreakerExecutorService timedBreaker() {
+        CircuitBreakerExecutorService breaker = CompletableExecutors.circuitBreaker("timed",
+                TimedCompletables.withDeadlines(timedPool(), Duration.ofSeconds(2)),
+                CircuitBreakerPolicy.window(20).withSlowCalls(Duration.ofSeconds(1), 0.8));
+        breaker.addListener((from, to) -> log.warn("Circuit breaker timed went from {} to {}", from, to));
+        return breaker;
     }
 
     @Bean(name = "timed")
     public Executor timeoutExecutor() {
-        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("timed-%d").build();
-        return TimedCompletables.timed(Executors.newFixedThreadPool(10, threadFactory), Duration.ofSeconds(2));
+        return CompletableExecutors.instrumented("timed", timedBreaker());
+    }
+
+    @Bean(name = "retrying")
+    public Executor retryingExecutor() {
+        // same pool and breaker as timed, each attempt gets 2 seconds and timeouts are tried again within 5 seconds
+        RetryPolicy retryOnTimeout = RetryPolicy.attempts(3)
+                .withBackoff(Duration.ofMillis(100), Duration.ofSeconds(1))
+                .retryOn(ex -> ex instanceof TimeoutException);
+        return CompletableExecutors.instrumented("retrying",
+                CompletableExecutors.retrying(timedBreaker(), retryOnTimeout, Duration.ofSeconds(5)));
+    }
+
+    @Bean
+    public PriorityExecutorService prioritized() {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("prioritized-%d").build();
+        return CompletableExecutors.prioritized(Executors.newFixedThreadPool(10, threadFactory), 10, 2,
+                Duration.ofMillis(500));
+    }
+
+    @Bean(name = "critical")
+    public Executor criticalExecutor() {
+        return prioritized().lane(0);
+    }
+
+    @Bean(name = "background")
+    public Executor backgroundExecutor() {
+        return prioritized().lane(1);
+    }
+
+    @Bean
+    public ExecutorWarmup executorWarmup(WarmupProperties warmupProperties) {
+        return new ExecutorWarmup(warmupProperties);
     }
 
     @Override
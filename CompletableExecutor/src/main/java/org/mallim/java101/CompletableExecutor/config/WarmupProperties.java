@@ -0,0 +1,24 @@
+package org.mallim.java101.CompletableExecutor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the executor warm-up at startup, bound from {@code warmup.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "warmup")
+public class WarmupProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Synthetic tasks run on every pool, and entries scheduled on the timer.
+     */
+    private int tasks = 10_000;
+
+    /**
+     * How long startup waits for the warm-up before going on regardless.
+     */
+    private int timeoutSeconds = 10;
+}
@@ -1,15 +1,21 @@
 package org.mallim.java101.CompletableExecutor.service;
 
+import lombok.extern.slf4j.Slf4j;
 import org.mallim.java101.CompletableExecutor.async.AsyncUtil;
+import org.mallim.java101.CompletableExecutor.processor.AsyncDelegate;
 import org.springframework.scheduling.annotation.Async;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+@Slf4j
+@AsyncDelegate
 public class AsyncService {
 
     private static String[] greetings = new String[]{
@@ -18,8 +24,18 @@ public class AsyncService {
             "saluton", "päivää", "selamat pagi", "gut de", "olá"
     };
 
+    private final Executor executor;
+
+    /**
+     * @param executor runs the non-blocking greetings once their delay is over
+     */
+    public AsyncService(Executor executor) {
+        this.executor = executor;
+    }
+
     @Async
     public CompletableFuture<String> asyncGreeting() {
+        log.debug("Preparing greeting");
         AsyncUtil.randomSleep(3000, TimeUnit.MILLISECONDS);
         String result = AsyncUtil.getThreadName() + " - " + random(greetings);
         return CompletableFuture.completedFuture(result);
@@ -28,11 +44,39 @@ public class AsyncService {
 
     @Async("timed")
     public CompletableFuture<String> asyncTimeoutGreeting() {
+        log.debug("Preparing greeting");
+        AsyncUtil.randomSleep(3000, TimeUnit.MILLISECONDS);
+        String result = AsyncUtil.getThreadName() + " - " + random(greetings);
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * Same as {@link #asyncTimeoutGreeting()}, tried again when it times out.
+     */
+    @Async("retrying")
+    public CompletableFuture<String> asyncRetryingGreeting() {
+        log.debug("Preparing greeting");
         AsyncUtil.randomSleep(3000, TimeUnit.MILLISECONDS);
         String result = AsyncUtil.getThreadName() + " - " + random(greetings);
         return CompletableFuture.completedFuture(result);
     }
 
+    /**
+     * Same as {@link #asyncGreeting()} without holding a pool thread during the simulated latency.
+     */
+    public CompletableFuture<String> delayedGreeting() {
+        log.debug("Preparing greeting");
+        return AsyncUtil.randomDelay(3000, TimeUnit.MILLISECONDS, executor)
+                .thenApply(ignored -> AsyncUtil.getThreadName() + " - " + random(greetings));
+    }
+
+    /**
+     * Same as {@link #asyncTimeoutGreeting()} without holding a pool thread during the simulated latency.
+     */
+    public CompletableFuture<String> delayedTimeoutGreeting() {
+        return AsyncUtil.within(delayedGreeting(), Duration.ofSeconds(2));
+    }
+
     @SafeVarargs
     public final <T> T random(T... elements) {
         LinkedList<T> greetings = new LinkedList<>(Arrays.asList(elements));
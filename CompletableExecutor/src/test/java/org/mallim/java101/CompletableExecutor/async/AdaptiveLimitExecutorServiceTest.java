@@ -0,0 +1,139 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveLimitExecutorServiceTest {
+
+    @Test
+    @DisplayName("Fire-and-forget tasks count against the limit and release it when done")
+    public void limitsExecute() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        AdaptiveLimitExecutorService executor = CompletableExecutors.adaptive(threads, 2, 1, 10);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch finished = new CountDownLatch(2);
+            for (int i = 0; i < 2; i++) {
+                executor.execute(() -> {
+                    await(release);
+                    finished.countDown();
+                });
+            }
+            assertEquals(2, executor.getInFlight());
+            assertThrows(LimitExceededException.class, () -> executor.execute(() -> {
+            }));
+            assertEquals(1, executor.getRejected());
+
+            release.countDown();
+            assertTrue(finished.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 100 && executor.getInFlight() > 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, executor.getInFlight());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("A failing command run on the caller's thread releases its slot once")
+    public void releasesCallerRunsFailureOnce() {
+        AdaptiveLimitExecutorService executor = CompletableExecutors.adaptive(MoreExecutors.newDirectExecutorService(), 2, 1, 10);
+
+        assertThrows(IllegalStateException.class, () -> executor.execute(() -> {
+            throw new IllegalStateException("failed");
+        }));
+        assertEquals(0, executor.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Submissions over the limit get an already failed future instead of a queue slot")
+    public void shedsWithFailedFuture() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        AdaptiveLimitExecutorService executor = CompletableExecutors.adaptive(threads, 1, 1, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> admitted = executor.submit(() -> release.await(5, TimeUnit.SECONDS));
+            AtomicBoolean ran = new AtomicBoolean();
+            CompletableFuture<Boolean> shed = executor.submit(() -> ran.getAndSet(true));
+
+            assertTrue(shed.isCompletedExceptionally());
+            ExecutionException e = assertThrows(ExecutionException.class, shed::get);
+            assertTrue(e.getCause() instanceof LimitExceededException, e.getCause().toString());
+            assertEquals(1, executor.getRejected());
+            assertEquals(1, executor.getInFlight());
+
+            release.countDown();
+            assertTrue(admitted.get(1, TimeUnit.SECONDS));
+            assertFalse(ran.get());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Timeouts cut the limit multiplicatively down to the minimum")
+    public void timeoutsShrinkLimit() {
+        AdaptiveLimitExecutorService executor = CompletableExecutors.adaptive(
+                MoreExecutors.newDirectExecutorService(), 20, 2, 100);
+        for (int i = 0; i < 200; i++) {
+            executor.submit(() -> {
+                throw new TimeoutException();
+            });
+        }
+        // four windows of 50, each cutting by a tenth
+        assertEquals(13, executor.getLimit());
+
+        for (int i = 0; i < 5_000; i++) {
+            executor.submit(() -> {
+                throw new TimeoutException();
+            });
+        }
+        assertEquals(2, executor.getLimit());
+        assertEquals(0, executor.getInFlight());
+    }
+
+    @Test
+    @DisplayName("The limit grows while the executor is busy at steady latency")
+    public void steadyLatencyGrowsLimit() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(64);
+        AdaptiveLimitExecutorService executor = CompletableExecutors.adaptive(threads, 4, 1, 32);
+        try {
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1500);
+            while (System.nanoTime() < end && executor.getLimit() < 8) {
+                // keep the limit saturated with tasks of the same length
+                if (executor.submit(() -> AsyncUtil.sleep(Duration.ofMillis(2))).isCompletedExceptionally()) {
+                    Thread.sleep(1);
+                }
+            }
+            assertTrue(executor.getLimit() >= 8, "limit " + executor.getLimit());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
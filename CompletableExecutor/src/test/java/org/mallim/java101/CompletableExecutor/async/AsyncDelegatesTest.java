@@ -0,0 +1,64 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AsyncDelegatesTest {
+
+    @Test
+    @DisplayName("Resolves completable executors as they are and wraps plain executor services")
+    public void resolvesExecutors() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        CompletableExecutorService completable = CompletableExecutors.completable(threads);
+        try {
+            assertSame(completable, AsyncDelegates.resolve(qualifier -> completable, "timed"));
+            CompletableExecutorService wrapped = AsyncDelegates.resolve(qualifier -> threads, "");
+            assertEquals("done", wrapped.submit(() -> "done").get(1, TimeUnit.SECONDS));
+
+            Executor direct = Runnable::run;
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> AsyncDelegates.resolve(qualifier -> direct, "direct"));
+            assertEquals("No ExecutorService for @Async(\"direct\"): " + direct, e.getMessage());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Awaits the value of the future a method body returned")
+    public void awaitsValue() throws Exception {
+        assertNull(AsyncDelegates.await(null));
+        assertEquals("value", AsyncDelegates.await(CompletableFuture.completedFuture("value")));
+    }
+
+    @Test
+    @DisplayName("Rethrows the cause of a failed future, wrapping throwables that are neither exceptions nor errors")
+    public void rethrowsCause() {
+        IOException checked = new IOException("checked");
+        assertSame(checked, assertThrows(IOException.class, () -> AsyncDelegates.await(failed(checked))));
+        AssertionError error = new AssertionError("error");
+        assertSame(error, assertThrows(AssertionError.class, () -> AsyncDelegates.await(failed(error))));
+        Throwable other = new Throwable("other");
+        assertSame(other, assertThrows(UndeclaredThrowableException.class,
+                () -> AsyncDelegates.await(failed(other))).getCause());
+    }
+
+    private static CompletableFuture<String> failed(Throwable cause) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(cause);
+        return future;
+    }
+}
@@ -0,0 +1,135 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncLoadingCacheTest {
+
+    @Test
+    @DisplayName("Concurrent gets of a missing key share one load, a failed load is retried")
+    public void sharesInFlightLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        List<CompletableFuture<String>> pending = new ArrayList<>();
+        AsyncLoadingCache<String, String> cache = AsyncLoadingCache.of(key -> {
+            loads.incrementAndGet();
+            CompletableFuture<String> load = new CompletableFuture<>();
+            pending.add(load);
+            return load;
+        }, CachePolicy.maximumWeight(100));
+
+        CompletableFuture<String> first = cache.get("octocat");
+        CompletableFuture<String> second = cache.get("octocat");
+        assertEquals(1, loads.get());
+        pending.get(0).completeExceptionally(new IllegalStateException("down"));
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+
+        CompletableFuture<String> retried = cache.get("octocat");
+        assertEquals(2, loads.get());
+        pending.get(1).complete("The Octocat");
+        assertEquals("The Octocat", retried.get());
+        assertEquals("The Octocat", cache.get("octocat").get());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("A caller cancelling or completing its future does not affect the other callers")
+    public void isolatesCallers() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> load = new CompletableFuture<>();
+        AsyncLoadingCache<String, String> cache = AsyncLoadingCache.of(key -> {
+            loads.incrementAndGet();
+            return load;
+        }, CachePolicy.maximumWeight(100));
+
+        CompletableFuture<String> cancelled = cache.get("octocat");
+        CompletableFuture<String> overwritten = cache.get("octocat");
+        CompletableFuture<String> waiting = cache.get("octocat");
+        assertTrue(cancelled.cancel(true));
+        overwritten.complete("forged");
+        overwritten.obtrudeValue("forged");
+        assertFalse(waiting.isDone());
+
+        load.complete("The Octocat");
+        assertEquals("The Octocat", waiting.get(1, TimeUnit.SECONDS));
+        assertEquals("The Octocat", cache.get("octocat").get(1, TimeUnit.SECONDS));
+        assertEquals("The Octocat", cache.getIfPresent("octocat").get(1, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("A load that hangs past the ttl fails its callers and is loaded again")
+    public void expiresHungLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        AsyncLoadingCache<String, String> cache = AsyncLoadingCache.of(key -> loads.incrementAndGet() == 1
+                        ? new CompletableFuture<>()
+                        : CompletableFuture.completedFuture("The Octocat"),
+                CachePolicy.maximumWeight(100).withTtl(Duration.ofMillis(100)));
+
+        CompletableFuture<String> hung = cache.get("octocat");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> hung.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TimeoutException, e.getCause().toString());
+
+        assertEquals("The Octocat", cache.get("octocat").get(1, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("Frequently used keys survive a scan of one-off keys")
+    public void keepsPopularKeys() {
+        AtomicInteger loads = new AtomicInteger();
+        AsyncLoadingCache<Integer, Integer> cache = AsyncLoadingCache.of(key -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(key);
+        }, CachePolicy.maximumWeight(10));
+
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 5; key++) {
+                cache.get(key);
+            }
+        }
+        for (int key = 1_000; key < 2_000; key++) {
+            cache.get(key);
+        }
+
+        assertTrue(cache.getWeight() <= 10, "weight " + cache.getWeight());
+        for (int key = 0; key < 5; key++) {
+            assertNotNull(cache.getIfPresent(key), "popular key " + key + " was evicted");
+        }
+    }
+
+    @Test
+    @DisplayName("Stale entries are refreshed in the background and expired ones loaded again")
+    public void refreshesAndExpires() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        AsyncLoadingCache<String, Integer> cache = AsyncLoadingCache.of(
+                key -> CompletableFuture.completedFuture(version.incrementAndGet()),
+                CachePolicy.maximumWeight(10).withTtl(Duration.ofMillis(200)).withRefreshAfter(Duration.ofMillis(50)));
+
+        assertEquals(1, (int) cache.get("key").get());
+        TimeUnit.MILLISECONDS.sleep(80);
+        // the stale value is served while the refresh runs
+        assertEquals(1, (int) cache.get("key").get());
+        assertEquals(2, (int) cache.get("key").get());
+
+        TimeUnit.MILLISECONDS.sleep(250);
+        assertEquals(3, (int) cache.get("key").get());
+        assertEquals(1, cache.getWeight());
+    }
+}
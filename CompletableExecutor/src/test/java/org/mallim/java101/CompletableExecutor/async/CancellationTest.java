@@ -0,0 +1,70 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CancellationTest {
+
+    @Test
+    @DisplayName("Cancelling a running task interrupts it and frees the pool thread")
+    public void cancelInterruptsRunningTask() throws Exception {
+        ThreadPoolExecutor threads = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        CompletableExecutorService executor = CompletableExecutors.completable(threads);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            CompletableFuture<?> running = executor.submit(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            });
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+
+            assertTrue(running.cancel(true));
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+            // the single thread is available again and carries no interrupt into the next task
+            assertFalse(executor.submit(() -> Thread.currentThread().isInterrupted()).get(1, TimeUnit.SECONDS));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Cancelling a queued task removes it from the queue so it never runs")
+    public void cancelRemovesQueuedTask() throws Exception {
+        ThreadPoolExecutor threads = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        CompletableExecutorService executor = CompletableExecutors.completable(threads);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+        try {
+            executor.submit(() -> {
+                release.await();
+                return null;
+            });
+            CompletableFuture<?> queued = executor.submit(() -> ran.set(true));
+            assertEquals(1, threads.getQueue().size());
+
+            assertTrue(queued.cancel(true));
+            assertEquals(0, threads.getQueue().size());
+            release.countDown();
+            executor.submit(() -> null).get(1, TimeUnit.SECONDS);
+            assertFalse(ran.get());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
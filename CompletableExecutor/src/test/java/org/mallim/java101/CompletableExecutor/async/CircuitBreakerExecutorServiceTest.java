@@ -0,0 +1,168 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerExecutorServiceTest {
+
+    @Test
+    @DisplayName("Opens on failures, fails fast while open, and closes after good trial calls")
+    public void opensAndRecovers() throws Exception {
+        CircuitBreakerExecutorService breaker = CompletableExecutors.circuitBreaker("test",
+                MoreExecutors.newDirectExecutorService(),
+                CircuitBreakerPolicy.window(10).withOpenDuration(Duration.ofMillis(100)).withHalfOpenCalls(2));
+        List<String> transitions = new ArrayList<>();
+        breaker.addListener((from, to) -> transitions.add(from + "->" + to));
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            breaker.submit(() -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("down");
+            });
+        }
+        assertEquals(CircuitBreakerExecutorService.State.OPEN, breaker.getState());
+
+        Throwable cause = breaker.submit(calls::incrementAndGet).handle((result, ex) -> ex).get();
+        assertTrue(cause instanceof CircuitOpenException, "expected fast failure but was " + cause);
+        assertEquals(5, calls.get());
+        assertEquals(1, breaker.getNotPermitted());
+
+        Thread.sleep(150);
+        assertEquals("up", breaker.submit(() -> "up").get(1, TimeUnit.SECONDS));
+        assertEquals(CircuitBreakerExecutorService.State.HALF_OPEN, breaker.getState());
+        assertEquals("up", breaker.submit(() -> "up").get(1, TimeUnit.SECONDS));
+        assertEquals(CircuitBreakerExecutorService.State.CLOSED, breaker.getState());
+
+        assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->CLOSED]", transitions.toString());
+    }
+
+    @Test
+    @DisplayName("Executed commands count in the window and fail fast while open")
+    public void guardsExecute() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        CircuitBreakerExecutorService breaker = CompletableExecutors.circuitBreaker("execute", threads,
+                CircuitBreakerPolicy.window(4).withOpenDuration(Duration.ofSeconds(10)));
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            for (int i = 0; i < 2; i++) {
+                breaker.execute(() -> {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("down");
+                });
+            }
+            awaitState(breaker, CircuitBreakerExecutorService.State.OPEN);
+
+            assertThrows(CircuitOpenException.class, () -> breaker.execute(calls::incrementAndGet));
+            assertEquals(2, calls.get());
+            assertEquals(1, breaker.getNotPermitted());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Opens when too many calls are slow even if they succeed")
+    public void opensOnSlowCalls() throws Exception {
+        CircuitBreakerExecutorService breaker = CompletableExecutors.circuitBreaker("slow",
+                MoreExecutors.newDirectExecutorService(),
+                CircuitBreakerPolicy.window(4).withSlowCalls(Duration.ofMillis(20), 0.5));
+
+        for (int i = 0; i < 2; i++) {
+            breaker.submit(() -> {
+                Thread.sleep(30);
+                return "slow";
+            }).get();
+        }
+        assertEquals(CircuitBreakerExecutorService.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Calls turned away while half open keep no trial, and a cancelled trial gives its trial back")
+    public void keepsHalfOpenTrials() throws Exception {
+        ExecutorService threads = Executors.newCachedThreadPool();
+        CircuitBreakerExecutorService breaker = CompletableExecutors.circuitBreaker("trials", threads,
+                CircuitBreakerPolicy.window(4).withOpenDuration(Duration.ofMillis(50)).withHalfOpenCalls(1));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            open(breaker);
+            Thread.sleep(80);
+            CompletableFuture<Boolean> trial = breaker.submit(() -> release.await(1, TimeUnit.SECONDS));
+            assertEquals(CircuitBreakerExecutorService.State.HALF_OPEN, breaker.getState());
+            for (int i = 0; i < 3; i++) {
+                Throwable cause = breaker.submit(() -> "turned away").handle((result, ex) -> ex).get();
+                assertTrue(cause instanceof CircuitOpenException, "expected fast failure but was " + cause);
+            }
+
+            trial.cancel(true);
+            assertEquals("up", breaker.submit(() -> "up").get(1, TimeUnit.SECONDS));
+            awaitState(breaker, CircuitBreakerExecutorService.State.CLOSED);
+        } finally {
+            release.countDown();
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Opens again when the trial calls take longer than the maximum half-open duration")
+    public void reopensWhenTrialsHang() throws Exception {
+        ExecutorService threads = Executors.newCachedThreadPool();
+        CircuitBreakerExecutorService breaker = CompletableExecutors.circuitBreaker("hanging", threads,
+                CircuitBreakerPolicy.window(4).withOpenDuration(Duration.ofMillis(50)).withHalfOpenCalls(1)
+                        .withMaxHalfOpenDuration(Duration.ofMillis(100)));
+        List<String> transitions = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            open(breaker);
+            breaker.addListener((from, to) -> transitions.add(from + "->" + to));
+            Thread.sleep(80);
+            breaker.submit(() -> release.await(1, TimeUnit.SECONDS));
+            Thread.sleep(150);
+
+            Throwable cause = breaker.submit(() -> "turned away").handle((result, ex) -> ex).get();
+            assertTrue(cause instanceof CircuitOpenException, "expected fast failure but was " + cause);
+            assertEquals(CircuitBreakerExecutorService.State.OPEN, breaker.getState());
+            assertEquals("[OPEN->HALF_OPEN, HALF_OPEN->OPEN]", transitions.toString());
+        } finally {
+            release.countDown();
+            threads.shutdownNow();
+        }
+    }
+
+    private static void open(CircuitBreakerExecutorService breaker) throws Exception {
+        for (int i = 0; i < 2; i++) {
+            breaker.submit(() -> {
+                throw new IllegalStateException("down");
+            }).handle((result, ex) -> ex).get(1, TimeUnit.SECONDS);
+        }
+        awaitState(breaker, CircuitBreakerExecutorService.State.OPEN);
+    }
+
+    /**
+     * The breaker sees an outcome on the pool thread, possibly just after the caller does.
+     */
+    private static void awaitState(CircuitBreakerExecutorService breaker, CircuitBreakerExecutorService.State state)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (breaker.getState() != state && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(state, breaker.getState());
+    }
+}
@@ -0,0 +1,163 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompletableFuturesTest {
+
+    @Test
+    @DisplayName("invokeAllAsync completes with every result in task order")
+    public void invokeAllSucceeds() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(3);
+        CompletableExecutorService executor = CompletableExecutors.completable(threads);
+        try {
+            List<Callable<String>> tasks = Arrays.asList(
+                    () -> {
+                        Thread.sleep(50);
+                        return "slow";
+                    },
+                    () -> "fast",
+                    () -> "");
+
+            assertEquals(Arrays.asList("slow", "fast", ""), executor.invokeAllAsync(tasks).get(1, TimeUnit.SECONDS));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("The first failure fails invokeAllAsync and interrupts the tasks still running")
+    public void invokeAllFailsFast() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        CompletableExecutorService executor = CompletableExecutors.completable(threads);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            List<Callable<String>> tasks = Arrays.asList(
+                    () -> blockUntilInterrupted(started, interrupted),
+                    () -> {
+                        started.await();
+                        throw new IOException("failed");
+                    });
+
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> executor.invokeAllAsync(tasks).get(1, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IOException, e.getCause().toString());
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("invokeAnyAsync takes the first success and interrupts the others")
+    public void invokeAnySucceeds() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(3);
+        CompletableExecutorService executor = CompletableExecutors.completable(threads);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            List<Callable<String>> tasks = Arrays.asList(
+                    () -> blockUntilInterrupted(started, interrupted),
+                    () -> {
+                        throw new IOException("failed");
+                    },
+                    () -> {
+                        started.await();
+                        return "winner";
+                    });
+
+            assertEquals("winner", executor.invokeAnyAsync(tasks).get(1, TimeUnit.SECONDS));
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("invokeAnyAsync fails only once every task failed")
+    public void invokeAnyFailsWhenAllFail() {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        CompletableExecutorService executor = CompletableExecutors.completable(threads);
+        try {
+            List<Callable<String>> tasks = Arrays.asList(
+                    () -> {
+                        throw new IOException("first");
+                    },
+                    () -> {
+                        Thread.sleep(50);
+                        throw new IllegalStateException("last");
+                    });
+
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> executor.invokeAnyAsync(tasks).get(1, TimeUnit.SECONDS));
+            assertEquals("last", e.getCause().getMessage());
+            assertThrows(IllegalArgumentException.class, () -> executor.invokeAnyAsync(Arrays.<Callable<String>>asList()));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A rejection part way through cancels the tasks already submitted")
+    public void rejectionCancelsSubmitted() throws Exception {
+        assertRejectionCancels(CompletableExecutorService::invokeAllAsync);
+        assertRejectionCancels(CompletableExecutorService::invokeAnyAsync);
+    }
+
+    private interface Invoker {
+        void invoke(CompletableExecutorService executor, List<Callable<String>> tasks);
+    }
+
+    private static void assertRejectionCancels(Invoker invoker) throws Exception {
+        // a single thread and no queue, so the second task is rejected
+        ThreadPoolExecutor threads = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        CompletableExecutorService executor = CompletableExecutors.completable(threads);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            List<Callable<String>> tasks = Arrays.asList(
+                    () -> blockUntilInterrupted(started, interrupted),
+                    () -> "rejected");
+
+            assertThrows(RejectedExecutionException.class, () -> invoker.invoke(executor, tasks));
+            // the first task is either skipped before it starts or interrupted, either way the thread is freed
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (threads.getActiveCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, threads.getActiveCount());
+            assertEquals(started.getCount(), interrupted.getCount());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private static String blockUntilInterrupted(CountDownLatch started, CountDownLatch interrupted) {
+        started.countDown();
+        try {
+            Thread.sleep(10_000);
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+        }
+        return "interrupted";
+    }
+}
@@ -0,0 +1,115 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeadlineExecutorServiceTest {
+
+    @Test
+    @DisplayName("The earliest of two deadlines wins, and no deadline loses to any")
+    public void earliest() {
+        Deadline sooner = Deadline.after(Duration.ofSeconds(1));
+        Deadline later = Deadline.after(Duration.ofSeconds(2));
+
+        assertSame(sooner, sooner.earliest(later));
+        assertSame(sooner, later.earliest(sooner));
+        assertSame(later, later.earliest(null));
+        assertFalse(later.isExpired());
+        assertTrue(Deadline.after(Duration.ZERO).isExpired());
+    }
+
+    @Test
+    @DisplayName("Tasks submitted from a task with a deadline inherit it")
+    public void inheritsDeadline() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        DeadlineExecutorService executor = TimedCompletables.withDeadlines(threads, null);
+        try {
+            Deadline deadline = Deadline.after(Duration.ofSeconds(5));
+            CompletableFuture<CompletableFuture<Deadline>> outer =
+                    executor.submit(() -> executor.submit(Deadline::current), deadline);
+
+            assertSame(deadline, outer.get(1, TimeUnit.SECONDS).get(1, TimeUnit.SECONDS));
+            // a later, explicit deadline does not extend the inherited one
+            CompletableFuture<CompletableFuture<Deadline>> extended = executor.submit(
+                    () -> executor.submit(Deadline::current, Deadline.after(Duration.ofSeconds(60))), deadline);
+            assertSame(deadline, extended.get(1, TimeUnit.SECONDS).get(1, TimeUnit.SECONDS));
+            // without a deadline and a default timeout, tasks run unbounded
+            assertNull(executor.submit(Deadline::current).get(1, TimeUnit.SECONDS));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A task still running at its deadline is interrupted and fails")
+    public void expiresRunningTask() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        DeadlineExecutorService executor = TimedCompletables.withDeadlines(threads, Duration.ofMillis(50));
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            CompletableFuture<Object> running = executor.submit(() -> {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> running.get(1, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof DeadlineExceededException, e.getCause().toString());
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+            assertEquals(0, executor.getDropped());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A task whose deadline passes in the queue is dropped without running")
+    public void dropsExpiredQueuedTask() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        DeadlineExecutorService executor = TimedCompletables.withDeadlines(threads, null);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+        try {
+            executor.submit(() -> release.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Boolean> queued = executor.submit(() -> ran.getAndSet(true),
+                    Deadline.after(Duration.ofMillis(50)));
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof DeadlineExceededException, e.getCause().toString());
+            // counted right after the future fails
+            long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (executor.getDropped() == 0 && System.nanoTime() < until) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, executor.getDropped());
+
+            release.countDown();
+            assertFalse(executor.submit(ran::get).get(1, TimeUnit.SECONDS));
+            // an already expired deadline fails at once
+            CompletableFuture<Boolean> expired = executor.submit(() -> true, Deadline.after(Duration.ZERO));
+            assertTrue(expired.isCompletedExceptionally());
+        } finally {
+            release.countDown();
+            threads.shutdownNow();
+        }
+    }
+}
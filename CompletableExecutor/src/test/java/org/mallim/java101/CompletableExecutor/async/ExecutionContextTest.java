@@ -0,0 +1,66 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ExecutionContextTest {
+
+    @Test
+    @DisplayName("The submitter's context is current while the task runs and gone afterwards")
+    public void propagatesContext() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        CompletableExecutorService executor = CompletableExecutors.completable(threads);
+        try {
+            try (ExecutionContext.Scope scope = ExecutionContext.open("requestId", "req-1")) {
+                assertEquals("req-1", executor.submit(() -> ExecutionContext.current().get("requestId"))
+                        .get(1, TimeUnit.SECONDS));
+                // plain execute() and async stages carry it too
+                assertEquals("req-1", executor.submit(() -> "ignored")
+                        .thenApplyAsync(ignored -> ExecutionContext.current().get("requestId"), executor)
+                        .get(1, TimeUnit.SECONDS));
+            }
+            assertNull(ExecutionContext.current());
+            assertNull(executor.submit(ExecutionContext::current).get(1, TimeUnit.SECONDS));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Nested scopes add entries and closing one restores the outer context")
+    public void nestsScopes() {
+        try (ExecutionContext.Scope outer = ExecutionContext.open("requestId", "req-1")) {
+            try (ExecutionContext.Scope inner = ExecutionContext.open("user", "octocat")) {
+                assertEquals("req-1", ExecutionContext.current().get("requestId"));
+                assertEquals("octocat", ExecutionContext.current().get("user"));
+            }
+            assertEquals("req-1", ExecutionContext.current().get("requestId"));
+            assertNull(ExecutionContext.current().get("user"));
+        }
+        assertNull(ExecutionContext.current());
+    }
+
+    @Test
+    @DisplayName("MDC entries the worker thread had set itself survive a task with the same key")
+    public void restoresPriorMdcValues() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        CompletableExecutorService executor = CompletableExecutors.completable(threads);
+        try {
+            threads.submit(() -> MDC.put("requestId", "worker")).get(1, TimeUnit.SECONDS);
+            try (ExecutionContext.Scope scope = ExecutionContext.open("requestId", "req-1")) {
+                assertEquals("req-1", executor.submit(() -> MDC.get("requestId")).get(1, TimeUnit.SECONDS));
+            }
+            assertEquals("worker", threads.submit(() -> MDC.get("requestId")).get(1, TimeUnit.SECONDS));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HedgingExecutorServiceTest {
+
+    @Test
+    @DisplayName("The learned hedge delay follows the delegate when it gets faster")
+    public void learnedDelayAdapts() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        HedgingExecutorService executor = CompletableExecutors.hedged(threads, Duration.ofSeconds(1), 95, 0.1);
+        try {
+            for (int i = 0; i < 1_000; i++) {
+                executor.submit(() -> spin(TimeUnit.MILLISECONDS.toNanos(1))).get(1, TimeUnit.SECONDS);
+            }
+            Thread.sleep(50);
+            long slowDelay = executor.getHedgeDelay().toNanos();
+            assertTrue(slowDelay >= TimeUnit.MICROSECONDS.toNanos(900), "slow delay " + slowDelay);
+
+            for (int i = 0; i < 200; i++) {
+                executor.submit(() -> 0L).get(1, TimeUnit.SECONDS);
+            }
+            Thread.sleep(50);
+            long fastDelay = executor.getHedgeDelay().toNanos();
+            assertTrue(fastDelay < slowDelay / 2, "fast delay " + fastDelay + " after " + slowDelay);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A hedge that fails first does not fail the task while the primary may still succeed")
+    public void takesFirstSuccess() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        HedgingExecutorService executor = CompletableExecutors.hedged(threads, Duration.ofMillis(20), 1.0);
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            CompletableFuture<String> result = executor.submit(() -> {
+                if (calls.incrementAndGet() == 1) {
+                    Thread.sleep(150);
+                    return "primary";
+                }
+                throw new IOException("hedge failed");
+            });
+
+            assertEquals("primary", result.get(1, TimeUnit.SECONDS));
+            assertEquals(2, calls.get());
+            assertEquals(1, executor.getHedges());
+            assertEquals(0, executor.getHedgeWins());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("The task fails with the first failure once both copies failed")
+    public void failsWhenBothCopiesFail() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        HedgingExecutorService executor = CompletableExecutors.hedged(threads, Duration.ofMillis(20), 1.0);
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            CompletableFuture<String> result = executor.submit(() -> {
+                if (calls.incrementAndGet() == 1) {
+                    Thread.sleep(150);
+                    throw new IOException("primary failed");
+                }
+                throw new IOException("hedge failed");
+            });
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+            assertEquals("hedge failed", e.getCause().getMessage());
+            assertEquals(2, calls.get());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A hedge shed by the delegate before it runs neither fails the task nor uses up a hedge")
+    public void ignoresShedHedge() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        AdaptiveLimitExecutorService limited = CompletableExecutors.adaptive(threads, 1, 1, 1);
+        HedgingExecutorService executor = CompletableExecutors.hedged(limited, Duration.ofMillis(50), 1.0);
+        try {
+            CompletableFuture<String> result = executor.submit(() -> {
+                Thread.sleep(150);
+                return "ok";
+            });
+
+            assertEquals("ok", result.get(1, TimeUnit.SECONDS));
+            assertEquals(1, limited.getRejected());
+            assertEquals(0, executor.getHedges());
+            assertEquals(0, executor.getHedgeWins());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private static long spin(long nanos) {
+        long end = System.nanoTime() + nanos;
+        long spins = 0;
+        while (System.nanoTime() < end) {
+            spins++;
+        }
+        return spins;
+    }
+}
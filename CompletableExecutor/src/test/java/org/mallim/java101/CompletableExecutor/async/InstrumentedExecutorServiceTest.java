@@ -0,0 +1,103 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InstrumentedExecutorServiceTest {
+
+    @Test
+    @DisplayName("Percentiles are within a bucket of the recorded values")
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1000, snapshot.getMax());
+        assertWithin(500, snapshot.getP50());
+        assertWithin(990, snapshot.getP99());
+        assertEquals(1000, snapshot.percentile(100));
+        assertEquals(1, snapshot.percentile(0));
+    }
+
+    @Test
+    @DisplayName("A snapshot-and-reset hands over the values and starts from an empty histogram")
+    public void snapshotAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.record(200);
+
+        LatencyHistogram.Snapshot taken = histogram.snapshotAndReset();
+        assertEquals(2, taken.getCount());
+        assertEquals(200, taken.getMax());
+
+        LatencyHistogram.Snapshot empty = histogram.snapshot();
+        assertEquals(0, empty.getCount());
+        assertEquals(0, empty.getMax());
+        assertEquals(0, empty.getP99());
+
+        histogram.record(7);
+        assertEquals(7, histogram.snapshot().getMax());
+    }
+
+    @Test
+    @DisplayName("Successes, failures, timeouts and cancellations are counted apart")
+    public void countsOutcomes() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        CompletableExecutorService executor = CompletableExecutors.instrumented("outcomes",
+                TimedCompletables.timed(threads, Duration.ofMillis(100)));
+        ExecutorMetrics metrics = ExecutorMetrics.of("outcomes");
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            assertSame(metrics, ExecutorMetrics.all().get("outcomes"));
+            assertEquals("ok", executor.submit(() -> "ok").get(1, TimeUnit.SECONDS));
+            executor.submit(() -> {
+                throw new IllegalStateException("failed");
+            });
+            executor.submit(() -> release.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Boolean> cancelled = executor.submit(() -> release.await(5, TimeUnit.SECONDS));
+            assertTrue(cancelled.cancel(true));
+
+            awaitCount(metrics, ExecutorMetrics.Snapshot::getTimedOut, 1);
+            ExecutorMetrics.Snapshot snapshot = metrics.snapshot();
+            assertEquals(4, snapshot.getSubmitted());
+            assertEquals(1, snapshot.getSucceeded());
+            assertEquals(1, snapshot.getFailed());
+            assertEquals(1, snapshot.getCancelled());
+            assertEquals(0, snapshot.getInFlight());
+            // the cancelled task may never have started, the other three did
+            assertTrue(snapshot.getQueueWait().getCount() >= 3, snapshot.toString());
+            assertTrue(snapshot.getExecution().getCount() >= 3, snapshot.toString());
+        } finally {
+            release.countDown();
+            threads.shutdownNow();
+        }
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.07, "expected about " + expected + " but was " + actual);
+    }
+
+    private static void awaitCount(ExecutorMetrics metrics, ToLongFunction<ExecutorMetrics.Snapshot> count,
+                                   long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (count.applyAsLong(metrics.snapshot()) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, count.applyAsLong(metrics.snapshot()));
+    }
+}
@@ -0,0 +1,100 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeyedExecutorServiceTest {
+
+    private static final int KEYS = 8;
+    private static final int TASKS_PER_KEY = 10_000;
+
+    @Test
+    @DisplayName("Tasks with the same key run one at a time in submission order")
+    public void keepsOrderPerKey() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        KeyedExecutorService executor = CompletableExecutors.keyed(threads);
+        try {
+            List<List<Integer>> seen = new ArrayList<>();
+            AtomicInteger[] running = new AtomicInteger[KEYS];
+            for (int key = 0; key < KEYS; key++) {
+                seen.add(Collections.synchronizedList(new ArrayList<>()));
+                running[key] = new AtomicInteger();
+            }
+            AtomicInteger overlaps = new AtomicInteger();
+
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (int i = 0; i < TASKS_PER_KEY; i++) {
+                for (int key = 0; key < KEYS; key++) {
+                    int k = key;
+                    int n = i;
+                    futures.add(executor.submit(k, () -> {
+                        if (running[k].incrementAndGet() > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        seen.get(k).add(n);
+                        running[k].decrementAndGet();
+                    }));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+            assertEquals(0, overlaps.get());
+            for (List<Integer> order : seen) {
+                assertEquals(TASKS_PER_KEY, order.size());
+                for (int i = 0; i < TASKS_PER_KEY; i++) {
+                    assertEquals(i, (int) order.get(i));
+                }
+            }
+            awaitNoActiveKeys(executor);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A cancelled task is skipped without holding up the tasks queued behind it")
+    public void cancelledTaskDoesNotBlockKey() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        KeyedExecutorService executor = CompletableExecutors.keyed(threads);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<?> first = executor.submit("key", () -> {
+                release.await();
+                return null;
+            });
+            CompletableFuture<?> cancelled = executor.submit("key", () -> "never");
+            CompletableFuture<String> last = executor.submit("key", () -> "last");
+
+            assertTrue(cancelled.cancel(true));
+            release.countDown();
+
+            assertEquals("last", last.get(1, TimeUnit.SECONDS));
+            assertTrue(first.isDone());
+            // the key is released right after the last task completes its future
+            awaitNoActiveKeys(executor);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private static void awaitNoActiveKeys(KeyedExecutorService executor) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (executor.getActiveKeys() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, executor.getActiveKeys());
+    }
+}
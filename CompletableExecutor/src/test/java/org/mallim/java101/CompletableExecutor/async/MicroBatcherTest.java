@@ -0,0 +1,102 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MicroBatcherTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer("batcher-test", Duration.ofMillis(10), 64);
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    public void stopTimer() {
+        timer.stop();
+    }
+
+    @Test
+    @DisplayName("A full batch goes out at once and cancels its window")
+    public void flushesFullBatch() throws Exception {
+        MicroBatcher<Integer, String> batcher = batcher(Runnable::run, 3, Duration.ofSeconds(10));
+
+        CompletableFuture<String> first = batcher.submit(1);
+        CompletableFuture<String> second = batcher.submit(2);
+        assertFalse(first.isDone());
+        assertEquals(1, timer.pendingTimeouts());
+        CompletableFuture<String> third = batcher.submit(3);
+
+        assertEquals("1", first.get(1, TimeUnit.SECONDS));
+        assertEquals("2", second.get(1, TimeUnit.SECONDS));
+        assertEquals("3", third.get(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3)), batches);
+        assertEquals(0, timer.pendingTimeouts());
+    }
+
+    @Test
+    @DisplayName("A partial batch goes out after its own window, not the window of a batch before it")
+    public void flushesPartialBatchAfterWindow() throws Exception {
+        Duration window = Duration.ofMillis(200);
+        MicroBatcher<Integer, String> batcher = batcher(Runnable::run, 2, window);
+
+        batcher.submit(1);
+        Thread.sleep(100);
+        batcher.submit(2);
+        long start = System.nanoTime();
+        CompletableFuture<String> partial = batcher.submit(3);
+
+        assertEquals("3", partial.get(1, TimeUnit.SECONDS));
+        long waited = System.nanoTime() - start;
+        assertTrue(waited >= window.toNanos(), "went out after " + TimeUnit.NANOSECONDS.toMillis(waited) + " ms");
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3)), batches);
+        assertEquals(0, timer.pendingTimeouts());
+    }
+
+    @Test
+    @DisplayName("A rejected batch fails its slots, on the caller and on the timer")
+    public void failsRejectedBatch() {
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException("full");
+        };
+        MicroBatcher<Integer, String> batcher = batcher(rejecting, 2, Duration.ofMillis(20));
+
+        CompletableFuture<String> first = batcher.submit(1);
+        CompletableFuture<String> second = batcher.submit(2);
+        assertRejected(first);
+        assertRejected(second);
+
+        assertRejected(batcher.submit(3));
+        assertTrue(batches.isEmpty());
+    }
+
+    private MicroBatcher<Integer, String> batcher(Executor executor, int maxBatchSize, Duration window) {
+        return MicroBatcher.of(executor, timer, maxBatchSize, window, items -> {
+            batches.add(new ArrayList<>(items));
+            List<String> results = new ArrayList<>(items.size());
+            for (Integer item : items) {
+                results.add(String.valueOf(item));
+            }
+            return results;
+        });
+    }
+
+    private static void assertRejected(CompletableFuture<String> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof RejectedExecutionException, e.getCause().toString());
+    }
+}
@@ -0,0 +1,126 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PriorityExecutorServiceTest {
+
+    @Test
+    @DisplayName("Plain submissions go to lane 0")
+    public void plainSubmitsGoToFirstLane() throws Exception {
+        ThreadPoolExecutor threads = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+        PriorityExecutorService executor = CompletableExecutors.prioritized(threads, 1, 2, Duration.ofSeconds(10));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.submit(() -> {
+                started.countDown();
+                return release.await(1, TimeUnit.SECONDS);
+            }, 1);
+            started.await(1, TimeUnit.SECONDS);
+            CompletableFuture<String> plain = executor.submit(() -> "plain");
+
+            assertEquals(1, executor.getQueued(0));
+            assertEquals(0, executor.getQueued(1));
+            release.countDown();
+            assertEquals("plain", plain.get(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Executes queue in their lane behind the parallelism bound")
+    public void executesQueueInLane() throws Exception {
+        ThreadPoolExecutor threads = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+        PriorityExecutorService executor = CompletableExecutors.prioritized(threads, 1, 2, Duration.ofSeconds(10));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.submit(() -> {
+                started.countDown();
+                return release.await(1, TimeUnit.SECONDS);
+            }, 0);
+            started.await(1, TimeUnit.SECONDS);
+            CompletableFuture<Void> background = CompletableFuture.runAsync(() -> { }, executor.lane(1));
+            CompletableFuture<Void> plain = CompletableFuture.runAsync(() -> { }, executor);
+
+            assertEquals(1, executor.getQueued(1));
+            assertEquals(1, executor.getQueued(0));
+            release.countDown();
+            background.get(1, TimeUnit.SECONDS);
+            plain.get(1, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A drainer the delegate rejects fails the task and frees its slot")
+    public void rejectedDrainerFreesSlot() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        AtomicBoolean rejecting = new AtomicBoolean(true);
+        ExecutorService delegate = new AbstractExecutorService() {
+            @Override
+            public void execute(Runnable command) {
+                if (rejecting.get()) {
+                    throw new RejectedExecutionException("rejecting");
+                }
+                threads.execute(command);
+            }
+
+            @Override
+            public void shutdown() {
+                threads.shutdown();
+            }
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                return threads.shutdownNow();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return threads.isShutdown();
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return threads.isTerminated();
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+                return threads.awaitTermination(timeout, unit);
+            }
+        };
+        PriorityExecutorService executor = CompletableExecutors.prioritized(delegate, 1, 2, Duration.ofSeconds(10));
+        try {
+            assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> "rejected"));
+            assertEquals(0, executor.getQueued(0));
+
+            rejecting.set(false);
+            assertEquals("accepted", executor.submit(() -> "accepted").get(1, TimeUnit.SECONDS));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimitedExecutorServiceTest {
+
+    @Test
+    @DisplayName("A burst passes at once and the rest is paced at the configured rate")
+    public void pacesTasksAfterBurst() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        RateLimitedExecutorService executor = CompletableExecutors.rateLimited(threads, 100, 10);
+        try {
+            long start = System.nanoTime();
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[30];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> System.nanoTime());
+            }
+            CompletableFuture.allOf(futures).get(5, TimeUnit.SECONDS);
+
+            long burstMillis = TimeUnit.NANOSECONDS.toMillis((Long) futures[9].get() - start);
+            long allMillis = TimeUnit.NANOSECONDS.toMillis((Long) futures[29].get() - start);
+            assertTrue(burstMillis < 100, "burst took " + burstMillis + " ms");
+            // 20 tasks beyond the burst at 10 ms each
+            assertTrue(allMillis >= 180, "all tasks took only " + allMillis + " ms");
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Tasks that would wait longer than maxWait are rejected without using permits")
+    public void rejectsBeyondMaxWait() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        RateLimitedExecutorService executor =
+                CompletableExecutors.rateLimited(threads, 10, 1, Duration.ofMillis(150));
+        try {
+            assertEquals("first", executor.submit(() -> "first").get(1, TimeUnit.SECONDS));
+            // ten permits would take a second
+            Throwable cause = executor.submit(() -> "heavy", 10).handle((result, ex) -> ex).get(1, TimeUnit.SECONDS);
+            assertTrue(cause instanceof LimitExceededException, "expected rejection but was " + cause);
+            assertEquals("light", executor.submit(() -> "light").get(1, TimeUnit.SECONDS));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A waiting task that is cancelled leaves the timer, and permits must be positive")
+    public void cancelsWaitingTask() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        HashedWheelTimer timer = new HashedWheelTimer("rate-test", Duration.ofMillis(10), 64);
+        RateLimitedExecutorService executor = new RateLimitedExecutorService(threads, 1, 1, null, timer);
+        try {
+            assertEquals("first", executor.submit(() -> "first").get(1, TimeUnit.SECONDS));
+            CompletableFuture<String> waiting = executor.submit(() -> "waiting");
+            assertEquals(1, timer.pendingTimeouts());
+
+            assertTrue(waiting.cancel(true));
+            assertEquals(0, timer.pendingTimeouts());
+            assertThrows(IllegalArgumentException.class, () -> executor.submit(() -> "free", 0));
+        } finally {
+            timer.stop();
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryingExecutorServiceTest {
+
+    @Test
+    @DisplayName("A failing task is retried until it succeeds")
+    public void retriesUntilSuccess() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        RetryingExecutorService executor = CompletableExecutors.retrying(threads,
+                RetryPolicy.attempts(4).withBackoff(Duration.ofMillis(10), Duration.ofMillis(50)));
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            String result = executor.submit(() -> {
+                if (attempts.incrementAndGet() < 3) {
+                    throw new IllegalStateException("attempt " + attempts.get());
+                }
+                return "done";
+            }).get(1, TimeUnit.SECONDS);
+
+            assertEquals("done", result);
+            assertEquals(3, attempts.get());
+            assertEquals(2, executor.getRetries());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Failures the policy does not accept are not retried")
+    public void doesNotRetryOtherFailures() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        RetryingExecutorService executor = CompletableExecutors.retrying(threads,
+                RetryPolicy.attempts(4).retryOn(ex -> ex instanceof TimeoutException));
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            Throwable cause = executor.submit(() -> {
+                attempts.incrementAndGet();
+                throw new IllegalArgumentException("bad input");
+            }).handle((result, ex) -> ex).get(1, TimeUnit.SECONDS);
+
+            assertTrue(cause instanceof IllegalArgumentException, "expected the task's failure but was " + cause);
+            assertEquals(1, attempts.get());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("All attempts together stay within the overall timeout")
+    public void boundsAllAttemptsByTimeout() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        RetryingExecutorService executor = CompletableExecutors.retrying(
+                TimedCompletables.timed(threads, Duration.ofMillis(100)),
+                RetryPolicy.attempts(10).withBackoff(Duration.ofMillis(10), Duration.ofMillis(10)),
+                Duration.ofMillis(400));
+        try {
+            long start = System.nanoTime();
+            Throwable cause = executor.submit(() -> {
+                Thread.sleep(1_000);
+                return "too late";
+            }).handle((result, ex) -> ex).get(2, TimeUnit.SECONDS);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertTrue(cause instanceof DeadlineExceededException, "expected deadline but was " + cause);
+            assertTrue(millis < 600, "took " + millis + " ms");
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SelfTuningExecutorServiceTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Grows to the busy workers plus what drains the backlog within one interval")
+    public void growsOnBacklog() {
+        SelfTuningExecutorService executor = executor(1, 100, 16, false);
+        try {
+            // 10 tasks/s of 100 ms keep one worker busy, 50 queued need 5 more for one interval
+            SizingDecision decision = executor.decide(1, 10, 10, 10 * 100 * MILLIS, 0, 2, 50);
+
+            assertEquals(8, decision.getNewSize());
+            assertEquals("demand", decision.getReason());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Shrinks by at most a quarter per interval")
+    public void shrinksGradually() {
+        SelfTuningExecutorService executor = executor(1, 100, 16, false);
+        try {
+            SizingDecision decision = executor.decide(1, 1, 1, 100 * MILLIS, 0, 20, 0);
+
+            assertEquals(15, decision.getNewSize());
+            assertEquals(12, executor.decide(1, 1, 1, 100 * MILLIS, 0, 15, 0).getNewSize());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Stays between the minimum and the maximum")
+    public void clampsToBounds() {
+        SelfTuningExecutorService executor = executor(2, 6, 16, false);
+        try {
+            SizingDecision shrunk = executor.decide(1, 1, 1, 100 * MILLIS, 0, 2, 0);
+            assertEquals(2, shrunk.getNewSize());
+            assertEquals("min", shrunk.getReason());
+
+            SizingDecision grown = executor.decide(1, 10, 10, 10 * 100 * MILLIS, 0, 2, 50);
+            assertEquals(6, grown.getNewSize());
+            assertEquals("max", grown.getReason());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Caps CPU-bound work by the cores, and backs off when the CPU is saturated")
+    public void capsOnCpu() {
+        SelfTuningExecutorService executor = executor(1, 100, 4, true);
+        try {
+            // 30 tasks/s of 100 ms, 70% of it on the CPU, and a backlog: 9 workers wanted, 6 allowed by the cores
+            SizingDecision capped = executor.decide(1, 30, 30, 30 * 100 * MILLIS, 30 * 70 * MILLIS, 4, 40);
+            assertEquals(6, capped.getNewSize());
+            assertEquals("cpu bound", capped.getReason());
+
+            // 95% of four cores busy, so more threads would only wait for a core
+            SelfTuningExecutorService saturated = executor(1, 100, 4, true);
+            try {
+                SizingDecision decision = saturated.decide(1, 80, 80, 80 * 100 * MILLIS, 3_800 * MILLIS, 8, 0);
+                assertEquals(6, decision.getNewSize());
+                assertEquals("cpu saturated", decision.getReason());
+            } finally {
+                saturated.shutdownNow();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("resetStatistics forgets the load measured so far")
+    public void resetClearsLoad() {
+        SelfTuningExecutorService executor = executor(1, 100, 16, false);
+        try {
+            executor.decide(1, 10, 10, 10 * 100 * MILLIS, 0, 2, 50);
+
+            executor.resetStatistics();
+            SizingDecision decision = executor.decide(1, 0, 0, 0, 0, 8, 0);
+            assertEquals(0.0, decision.getArrivalRate());
+            assertEquals(Duration.ZERO, decision.getServiceTime());
+            assertEquals(8, decision.getNewSize());
+            assertEquals("no samples", decision.getReason());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The timer is stopped right away, so only the test calls decide.
+     */
+    private static SelfTuningExecutorService executor(int minThreads, int maxThreads, int cores, boolean cpuTimeSupported) {
+        HashedWheelTimer timer = new HashedWheelTimer("tuning-test", Duration.ofMillis(10), 64);
+        SelfTuningExecutorService executor = new SelfTuningExecutorService(minThreads, maxThreads, Duration.ofSeconds(1),
+                timer, cores, cpuTimeSupported);
+        timer.stop();
+        return executor;
+    }
+}
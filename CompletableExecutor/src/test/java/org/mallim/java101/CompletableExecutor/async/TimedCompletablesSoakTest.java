@@ -0,0 +1,82 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimedCompletablesSoakTest {
+
+    private static final int ROUNDS = 5;
+    private static final int SUBMITS_PER_ROUND = 500_000;
+    private static final long MAX_HEAP_GROWTH = 16 * 1024 * 1024;
+
+    @Test
+    @DisplayName("Heap stays flat across millions of timed submits that finish early")
+    public void heapStaysFlat() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer("soak-wheel", Duration.ofMillis(10), 512);
+        TimedCompletables.TimeOutExecutorService executor = new TimedCompletables.TimeOutExecutorService(
+                MoreExecutors.newDirectExecutorService(), Duration.ofSeconds(30), timer);
+        try {
+            long[] usedAfterRound = new long[ROUNDS];
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < SUBMITS_PER_ROUND; i++) {
+                    executor.submit(() -> "done");
+                }
+                assertEquals(0, timer.pendingTimeouts());
+                // let the worker unlink the cancelled timeouts before measuring
+                Thread.sleep(500);
+                usedAfterRound[round] = usedHeap();
+            }
+
+            long growth = usedAfterRound[ROUNDS - 1] - usedAfterRound[0];
+            assertTrue(growth < MAX_HEAP_GROWTH, "heap grew by " + growth + " bytes");
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("A task still running after the timeout fails with TimeoutException and is interrupted")
+    public void timesOutSlowTask() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        TimedCompletables.TimeOutExecutorService executor =
+                new TimedCompletables.TimeOutExecutorService(threads, Duration.ofMillis(50));
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            CompletableFuture<String> cf = executor.submit(() -> {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return "too late";
+            });
+
+            Throwable cause = cf.handle((result, ex) -> ex).get();
+            assertTrue(cause instanceof TimeoutException, "expected timeout but was " + cause);
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
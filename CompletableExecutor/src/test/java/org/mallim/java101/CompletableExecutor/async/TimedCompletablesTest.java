@@ -0,0 +1,50 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimedCompletablesTest {
+
+    @Test
+    @DisplayName("Dependents of a timed-out task do not run on the timer thread")
+    public void timeoutCompletesOffTimer() throws Exception {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        CompletableExecutorService executor = TimedCompletables.timed(threads, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> task = executor.submit(() -> release.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> dependent = task.handle((result, ex) -> AsyncUtil.getThreadName());
+
+            assertNotEquals("timed-wheel", dependent.get(1, TimeUnit.SECONDS));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> task.get(1, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TimeoutException);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Dependents of a future failed by within() do not run on the timer thread")
+    public void withinCompletesOffTimer() throws Exception {
+        CompletableFuture<String> future = AsyncUtil.within(new CompletableFuture<>(), Duration.ofMillis(50));
+        CompletableFuture<String> dependent = future.handle((result, ex) -> AsyncUtil.getThreadName());
+
+        assertNotEquals("timed-wheel", dependent.get(1, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TimeoutException);
+    }
+}
@@ -0,0 +1,92 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WarmupTest {
+
+    @Test
+    @DisplayName("Core threads are started through every decorator")
+    public void prestartsUnderDecorators() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(3, 3, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(10));
+        CompletableExecutorService executor = CompletableExecutors.instrumented("warmup",
+                TimedCompletables.withDeadlines(pool, Duration.ofSeconds(1)));
+        try {
+            assertEquals(3, Warmup.prestart(executor));
+            assertEquals(3, pool.getPoolSize());
+            assertEquals(0, Warmup.prestart(executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Synthetic tasks that complete inline do not grow the stack")
+    public void runsInlineTasks() throws Exception {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.execute(() -> sleep(200));
+        CompletableExecutorService executor = CompletableExecutors.completable(pool);
+        try {
+            assertNotNull(Warmup.run(executor, 100_000).get(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Synthetic tasks run one after the other on a pool, and the timer fires")
+    public void runsOnPoolAndTimer() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        CompletableExecutorService executor = CompletableExecutors.completable(threads);
+        try {
+            Duration took = Warmup.run(executor, 10_000).get(30, TimeUnit.SECONDS);
+            assertTrue(took.toNanos() > 0);
+            assertNotNull(Warmup.timer(1_000).get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Synthetic tasks on the pool stay out of the metrics and self-tuning pools forget them")
+    public void keepsWarmupOutOfStatistics() throws Exception {
+        SelfTuningExecutorService selfTuning = new SelfTuningExecutorService(Executors.defaultThreadFactory(), 1, 4,
+                Duration.ofMillis(50), HashedWheelTimer.shared());
+        CompletableExecutorService executor = CompletableExecutors.instrumented("warmup-stats",
+                TimedCompletables.withDeadlines(selfTuning, Duration.ofSeconds(1)));
+        try {
+            ExecutorService pool = Warmup.pool(executor);
+            assertSame(pool, Warmup.pool(selfTuning));
+            assertNotNull(Warmup.run(CompletableExecutors.completable(pool), 10_000).get(30, TimeUnit.SECONDS));
+            assertEquals(0, ExecutorMetrics.of("warmup-stats").snapshot().getSubmitted());
+
+            Warmup.resetStatistics(executor);
+            Thread.sleep(200);
+            assertEquals(0.0, selfTuning.getLastDecision().getArrivalRate());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.mallim.java101.CompletableExecutor.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WorkStealingCompletableExecutorServiceTest {
+
+    @Test
+    @DisplayName("Submits from outside the pool go to the shared submission queue")
+    public void externalSubmit() throws Exception {
+        WorkStealingCompletableExecutorService executor = CompletableExecutors.workStealing(2);
+        try {
+            Thread worker = executor.submit(Thread::currentThread).get(1, TimeUnit.SECONDS);
+
+            assertTrue(worker instanceof ForkJoinWorkerThread);
+            assertTrue(worker.getName().startsWith("steal-"), worker.getName());
+            assertEquals(1, executor.stats().getExternalSubmissions());
+            assertEquals(0, executor.stats().getLocalForks());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Submits and async stages from a worker are forked onto its own deque")
+    public void localFork() throws Exception {
+        WorkStealingCompletableExecutorService executor = CompletableExecutors.workStealing(2);
+        try {
+            CompletableFuture<CompletableFuture<String>> outer = executor.submit(() -> executor.submit(() -> "inner"));
+            assertEquals("inner", outer.get(1, TimeUnit.SECONDS).get(1, TimeUnit.SECONDS));
+            assertEquals(1, executor.stats().getExternalSubmissions());
+            assertEquals(1, executor.stats().getLocalForks());
+
+            // the stage is triggered on the worker that completes the gate
+            CompletableFuture<String> gate = new CompletableFuture<>();
+            CompletableFuture<String> chained = gate.thenApplyAsync(first -> first + " then", executor);
+            executor.submit(() -> gate.complete("first"));
+            assertEquals("first then", chained.get(1, TimeUnit.SECONDS));
+            assertEquals(2, executor.stats().getExternalSubmissions());
+            assertEquals(2, executor.stats().getLocalForks());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.mallim.java101.CompletableExecutor.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mallim.java101.CompletableExecutor.async.CompletableExecutorService;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkheadRegistrarTest {
+
+    @Test
+    @DisplayName("Binds every entry under executors with relaxed property names")
+    public void bindsRelaxedNames() {
+        DefaultListableBeanFactory registry = register(
+                "executors.lookup.kind", "SELF_TUNING",
+                "executors.lookup.minThreads", "3",
+                "executors.lookup.queue_capacity", "5",
+                "executors.lookup.timeout-millis", "500",
+                "executors.lookup.rejection", "CALLER_RUNS",
+                "executors.audit.threads", "2");
+
+        BulkheadProperties lookup = properties(registry, "lookup");
+        assertEquals(BulkheadProperties.Kind.SELF_TUNING, lookup.getKind());
+        assertEquals(3, lookup.getMinThreads());
+        assertEquals(5, lookup.getQueueCapacity());
+        assertEquals(500, lookup.getTimeoutMillis());
+        assertEquals(BulkheadProperties.Rejection.CALLER_RUNS, lookup.getRejection());
+
+        BulkheadProperties audit = properties(registry, "audit");
+        assertEquals(BulkheadProperties.Kind.FIXED, audit.getKind());
+        assertEquals(2, audit.getThreads());
+        assertEquals(100, audit.getQueueCapacity());
+        assertTrue(registry.getBean("audit") instanceof CompletableExecutorService);
+        registry.destroySingletons();
+    }
+
+    @Test
+    @DisplayName("Fails when an entry clashes with an existing bean")
+    public void failsOnNameClash() {
+        DefaultListableBeanFactory registry = new DefaultListableBeanFactory();
+        registry.registerBeanDefinition("timed", new RootBeanDefinition(Object.class));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> register(registry, "executors.timed.threads", "4"));
+        assertEquals("executors.timed clashes with an existing bean named timed", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("Fails when a virtual entry sets a queue capacity or a rejection")
+    public void failsOnVirtualQueueSettings() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> register("executors.io.kind", "VIRTUAL", "executors.io.queueCapacity", "10"));
+        assertEquals("executors.io.queue-capacity does not apply to VIRTUAL executors", e.getMessage());
+
+        e = assertThrows(IllegalStateException.class,
+                () -> register("executors.io.kind", "VIRTUAL", "executors.io.rejection", "CALLER_RUNS"));
+        assertEquals("executors.io.rejection does not apply to VIRTUAL executors", e.getMessage());
+
+        DefaultListableBeanFactory registry = register("executors.io.kind", "VIRTUAL", "executors.io.threads", "4");
+        assertEquals(BulkheadProperties.Kind.VIRTUAL, properties(registry, "io").getKind());
+    }
+
+    @Test
+    @DisplayName("A queue capacity of 0 only hands tasks to idle threads")
+    public void zeroCapacityRejectsWhenBusy() throws Exception {
+        withBusyPool(0, BulkheadProperties.Rejection.ABORT, (executor, queued) -> {
+            assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> "rejected"));
+        });
+    }
+
+    @Test
+    @DisplayName("A queue capacity of N keeps N tasks waiting and rejects the next one")
+    public void boundedCapacityRejectsWhenFull() throws Exception {
+        withBusyPool(2, BulkheadProperties.Rejection.ABORT, (executor, queued) -> {
+            queued.add(executor.submit(() -> "first"));
+            queued.add(executor.submit(() -> "second"));
+            assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> "rejected"));
+        });
+    }
+
+    @Test
+    @DisplayName("A queue capacity of -1 keeps every task waiting")
+    public void negativeCapacityIsUnbounded() throws Exception {
+        withBusyPool(-1, BulkheadProperties.Rejection.ABORT, (executor, queued) -> {
+            for (int i = 0; i < 1000; i++) {
+                queued.add(executor.submit(() -> "queued"));
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("CALLER_RUNS runs the rejected task on the submitting thread")
+    public void callerRunsWhenFull() throws Exception {
+        withBusyPool(0, BulkheadProperties.Rejection.CALLER_RUNS, (executor, queued) -> {
+            Thread caller = Thread.currentThread();
+            CompletableFuture<Thread> ran = executor.submit(Thread::currentThread);
+            assertSame(caller, ran.get(1, TimeUnit.SECONDS));
+        });
+    }
+
+    private interface BusyPoolCheck {
+        void check(CompletableExecutorService executor, List<CompletableFuture<?>> queued) throws Exception;
+    }
+
+    /**
+     * Runs {@code check} against a single thread pool whose only thread is blocked, then unblocks it and
+     * expects every task the check queued to complete.
+     */
+    private static void withBusyPool(int queueCapacity, BulkheadProperties.Rejection rejection,
+                                     BusyPoolCheck check) throws Exception {
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.setThreads(1);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setRejection(rejection);
+        BulkheadFactoryBean factory = new BulkheadFactoryBean("test", properties);
+        try {
+            CompletableExecutorService executor = factory.getObject();
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Boolean> blocker = executor.submit(() -> {
+                started.countDown();
+                return release.await(5, TimeUnit.SECONDS);
+            });
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+
+            List<CompletableFuture<?>> queued = new ArrayList<>();
+            check.check(executor, queued);
+
+            release.countDown();
+            assertTrue(blocker.get(1, TimeUnit.SECONDS));
+            CompletableFuture.allOf(queued.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.SECONDS);
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    private static DefaultListableBeanFactory register(String... keysAndValues) {
+        return register(new DefaultListableBeanFactory(), keysAndValues);
+    }
+
+    private static DefaultListableBeanFactory register(DefaultListableBeanFactory registry, String... keysAndValues) {
+        Map<String, Object> source = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            source.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", source));
+        BulkheadRegistrar registrar = new BulkheadRegistrar();
+        registrar.setEnvironment(environment);
+        registrar.postProcessBeanDefinitionRegistry(registry);
+        return registry;
+    }
+
+    private static BulkheadProperties properties(DefaultListableBeanFactory registry, String name) {
+        return (BulkheadProperties) registry.getBeanDefinition(name).getConstructorArgumentValues()
+                .getIndexedArgumentValue(1, BulkheadProperties.class).getValue();
+    }
+}